@@ -0,0 +1,48 @@
+package com.codingzero.utilities.transaction.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks with the allocation profiler and keeps the results in <tt>results/&lt;version&gt;.csv</tt>,
+ * so runs of different versions can be compared with <tt>compare &lt;baseline.csv&gt; &lt;current.csv&gt;</tt>.
+ *
+ * The version is the one of the jar, or the <tt>benchmark.version</tt> system property. Other arguments
+ * are passed to JMH, e.g. a benchmark name pattern.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "compare".equals(args[0])) {
+            String[] compareArgs = new String[args.length - 1];
+            System.arraycopy(args, 1, compareArgs, 0, compareArgs.length);
+            System.exit(CompareResults.run(compareArgs));
+        }
+        File results = new File("results");
+        if (!results.isDirectory() && !results.mkdirs()) {
+            throw new IllegalStateException("Cannot create the results directory " + results.getAbsolutePath());
+        }
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.CSV)
+                .result(new File(results, getVersion() + ".csv").getPath())
+                .build();
+        new Runner(options).run();
+    }
+
+    private static String getVersion() {
+        String version = System.getProperty("benchmark.version");
+        if (null == version) {
+            version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        }
+        return null == version ? "dev" : version;
+    }
+
+}
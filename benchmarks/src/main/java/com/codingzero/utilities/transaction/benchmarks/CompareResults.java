@@ -0,0 +1,147 @@
+package com.codingzero.utilities.transaction.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares two JMH CSV result files row by row, matched on benchmark, mode and parameters, and prints
+ * the change of each score. Scores in ops per time are better higher, all others lower. Returns 1 if a
+ * score got worse by more than the threshold, 10 percent by default.
+ *
+ * Only the primary scores, the allocation per operation and the median, 90th and 99th percentiles are
+ * compared, the other rows follow from those or are too noisy.
+ */
+public class CompareResults {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+    private static final Set<String> COMPARED_PERCENTILES =
+            new HashSet<>(Arrays.asList("p0.50", "p0.90", "p0.99"));
+
+    public static void main(String[] args) throws IOException {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: compare <baseline.csv> <current.csv> [threshold percent]");
+            return 2;
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Row> baseline = read(args[0]);
+        Map<String, Row> current = read(args[1]);
+        int regressions = 0;
+        for (Map.Entry<String, Row> entry: current.entrySet()) {
+            Row before = baseline.get(entry.getKey());
+            Row after = entry.getValue();
+            if (null == before || before.score == 0) {
+                System.out.println(String.format(Locale.ROOT, "%-100s %14.3f %s (new)",
+                        entry.getKey(), after.score, after.unit));
+                continue;
+            }
+            double change = (after.score - before.score) / before.score * 100;
+            double worse = after.isHigherBetter() ? -change : change;
+            boolean regression = worse > threshold;
+            if (regression) {
+                regressions ++;
+            }
+            System.out.println(String.format(Locale.ROOT, "%-100s %14.3f -> %14.3f %s %+7.1f%%%s",
+                    entry.getKey(), before.score, after.score, after.unit, change, regression ? " REGRESSION" : ""));
+        }
+        System.out.println(regressions + " regression(s) over " + threshold + "%");
+        return regressions > 0 ? 1 : 0;
+    }
+
+    private static Map<String, Row> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        Map<String, Row> rows = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return rows;
+        }
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        for (String line: lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> columns = split(line);
+            String name = columns.get(benchmark);
+            if (!isCompared(name)) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(name).append(" ").append(columns.get(mode));
+            for (int i = unit + 1; i < columns.size(); i ++) {
+                if (!columns.get(i).isEmpty()) {
+                    key.append(" ").append(header.get(i).replace("Param: ", "")).append("=").append(columns.get(i));
+                }
+            }
+            rows.put(key.toString(), new Row(Double.parseDouble(columns.get(score)), columns.get(unit)));
+        }
+        return rows;
+    }
+
+    private static boolean isCompared(String benchmark) {
+        int secondary = benchmark.indexOf(':');
+        if (secondary < 0) {
+            return true;
+        }
+        String label = benchmark.substring(secondary + 1);
+        return label.equals("gc.alloc.rate.norm") || COMPARED_PERCENTILES.contains(label);
+    }
+
+    /**
+     * Splits a CSV line as JMH writes it, fields may be quoted and quotes inside are doubled.
+     */
+    private static List<String> split(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i ++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i ++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+
+    private static class Row {
+
+        private double score;
+        private String unit;
+
+        Row(double score, String unit) {
+            this.score = score;
+            this.unit = unit;
+        }
+
+        boolean isHigherBetter() {
+            return unit.startsWith("ops/");
+        }
+
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.codingzero.utilities.transaction.benchmarks;
+
+import com.codingzero.utilities.transaction.TransactionManager;
+import com.codingzero.utilities.transaction.TransactionManagerBuilder;
+import com.codingzero.utilities.transaction.jdbc.JDBCTransactionalService;
+import com.codingzero.utilities.transaction.jdbc.JDBCTransactionalServiceOptions;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelperProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local, nested and global transactions of a JDBC service on a stub connection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JDBCTransactionalServiceBenchmark {
+
+    @Param({"false", "true"})
+    private boolean nested;
+
+    private BenchmarkService service;
+    private TransactionManager manager;
+
+    @Setup
+    public void setUp() {
+        DataSource dataSource = new StubDataSource();
+        service = new BenchmarkService(dataSource, JDBCTransactionalServiceOptions.create().nested(nested));
+        manager = TransactionManagerBuilder.create().build();
+        manager.register("service", new BenchmarkService(dataSource, JDBCTransactionalServiceOptions.create()));
+    }
+
+    @Benchmark
+    public void localStartCommit() {
+        service.start();
+        service.commit();
+    }
+
+    /**
+     * With the nested option the inner start sets a savepoint, otherwise it joins the outer transaction.
+     */
+    @Benchmark
+    public void nestedStartCommit() {
+        service.start();
+        service.start();
+        service.commit();
+        service.commit();
+    }
+
+    @Benchmark
+    public void globalStartCommit() {
+        manager.start();
+        manager.commit();
+    }
+
+    private static class BenchmarkService extends JDBCTransactionalService {
+
+        BenchmarkService(DataSource dataSource, JDBCTransactionalServiceOptions options) {
+            super(dataSource, new TransactionHelperProvider(), options);
+        }
+
+    }
+
+}
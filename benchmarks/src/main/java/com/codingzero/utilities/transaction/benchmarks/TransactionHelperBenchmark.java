@@ -0,0 +1,68 @@
+package com.codingzero.utilities.transaction.benchmarks;
+
+import com.codingzero.utilities.transaction.jdbc.TransactionHelper;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelperProvider;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelperProviderOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A helper from the provider through one transaction, with and without using its connection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionHelperBenchmark {
+
+    @Param({"false", "true"})
+    private boolean lazy;
+
+    @Param({"false", "true"})
+    private boolean trackSessionState;
+
+    private DataSource dataSource;
+    private TransactionHelperProvider provider;
+
+    @Setup
+    public void setUp() {
+        dataSource = new StubDataSource();
+        provider = new TransactionHelperProvider(
+                TransactionHelperProviderOptions.create().trackSessionState(trackSessionState));
+    }
+
+    private TransactionHelper newHelper() {
+        return lazy ? provider.getLazy(dataSource) : provider.get(dataSource);
+    }
+
+    @Benchmark
+    public void usedTransaction(Blackhole blackhole) {
+        TransactionHelper helper = newHelper();
+        helper.startTransaction();
+        blackhole.consume(helper.getConnection());
+        helper.commit();
+    }
+
+    @Benchmark
+    public void emptyTransaction() {
+        TransactionHelper helper = newHelper();
+        helper.startTransaction();
+        helper.commit();
+    }
+
+}
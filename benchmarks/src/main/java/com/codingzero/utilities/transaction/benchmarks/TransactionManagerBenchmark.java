@@ -0,0 +1,84 @@
+package com.codingzero.utilities.transaction.benchmarks;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionManager;
+import com.codingzero.utilities.transaction.TransactionManagerBuilder;
+import com.codingzero.utilities.transaction.TransactionalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the manager itself, its services do nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionManagerBenchmark {
+
+    @Param({"1", "4", "16", "64"})
+    private int serviceCount;
+
+    @Param({"false", "true"})
+    private boolean threadBound;
+
+    private TransactionManager manager;
+
+    @Setup
+    public void setUp() {
+        manager = TransactionManagerBuilder.create().threadBound(threadBound).build();
+        for (int i = 0; i < serviceCount; i ++) {
+            manager.register("service" + i, new NoopService());
+        }
+    }
+
+    @Benchmark
+    public void startCommit() {
+        manager.start();
+        manager.commit();
+    }
+
+    @Benchmark
+    public void startRollback() {
+        manager.start();
+        manager.rollback();
+    }
+
+    private static class NoopService implements TransactionalService {
+
+        @Override
+        public void onRegister(String name, TransactionContext context) {
+
+        }
+
+        @Override
+        public void onStartTransaction(TransactionContext context) {
+
+        }
+
+        @Override
+        public void onCommitTransaction(TransactionContext context) {
+
+        }
+
+        @Override
+        public void onRollbackTransaction(TransactionContext context) {
+
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import com.codingzero.utilities.transaction.jdbc.JDBCTransactionalService;
+import com.codingzero.utilities.transaction.jdbc.JDBCTransactionalServiceOptions;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelperProvider;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The DAO driven by the load test, written like an application one. It is shared, so a single instance
+ * serves every worker thread.
+ */
+public class AccountDAO extends JDBCTransactionalService {
+
+    private static final String SELECT_BALANCE = "SELECT balance FROM account WHERE id=?;";
+    private static final String UPDATE_BALANCE = "UPDATE account SET balance=balance+? WHERE id=?;";
+
+    public AccountDAO(DataSource dataSource, TransactionHelperProvider helperProvider) {
+        super(dataSource, helperProvider, JDBCTransactionalServiceOptions.create().shared(true));
+    }
+
+    public long selectBalance(long id) {
+        Connection conn = getConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(SELECT_BALANCE);
+            stmt.setLong(1, id);
+            rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return 0;
+            }
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            closeResultSet(rs);
+            closePreparedStatement(stmt);
+            closeConnection(conn);
+        }
+    }
+
+    public void updateBalance(long id, long delta) {
+        Connection conn = getConnection();
+        PreparedStatement stmt = null;
+        try {
+            stmt = conn.prepareStatement(UPDATE_BALANCE);
+            stmt.setLong(1, delta);
+            stmt.setLong(2, id);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            closePreparedStatement(stmt);
+            closeConnection(conn);
+        }
+    }
+
+}
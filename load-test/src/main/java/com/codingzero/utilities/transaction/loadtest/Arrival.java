@@ -0,0 +1,27 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+/**
+ * How the load test issues transactions.
+ */
+public enum Arrival {
+
+    /**
+     * Every worker starts the next transaction as soon as the last one is done, which measures the
+     * throughput the workers can reach.
+     */
+    CLOSED,
+
+    /**
+     * Transactions are due at evenly spaced times for the target rate, whether or not the earlier ones
+     * are done. Latency is taken from the due time, so a stall counts against every transaction held up
+     * behind it.
+     */
+    FIXED,
+
+    /**
+     * Like <tt>FIXED</tt>, with exponentially distributed gaps between the due times, like independent
+     * clients produce.
+     */
+    POISSON
+
+}
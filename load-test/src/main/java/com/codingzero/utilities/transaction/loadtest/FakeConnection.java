@@ -0,0 +1,392 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection of a <tt>FakeDataSource</tt>. It keeps its session state, and its statements, commits and
+ * rollbacks take the latencies and fail at the rates of the data source.
+ */
+class FakeConnection implements Connection {
+
+    private FakeDataSource dataSource;
+    private FakeDataSourceOptions options;
+    private AtomicBoolean closed;
+    private boolean autoCommit;
+    private boolean readOnly;
+    private int transactionIsolation;
+    private int holdability;
+    private int savepointCount;
+    private String catalog;
+    private String schema;
+
+    FakeConnection(FakeDataSource dataSource) {
+        this.dataSource = dataSource;
+        this.options = dataSource.getOptions();
+        this.closed = new AtomicBoolean(false);
+        this.autoCommit = true;
+        this.readOnly = false;
+        this.transactionIsolation = TRANSACTION_REPEATABLE_READ;
+        this.holdability = 0;
+        this.savepointCount = 0;
+        this.catalog = null;
+        this.schema = null;
+    }
+
+    FakeDataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        checkForClosed();
+        return FakeStatements.createStatement(this, null);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        checkForClosed();
+        return FakeStatements.createPreparedStatement(this, sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        checkForClosed();
+        return FakeStatements.createCallableStatement(this, sql);
+    }
+
+    @Override
+    public String nativeSQL(String sql) {
+        return sql;
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) {
+        this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public boolean getAutoCommit() {
+        return autoCommit;
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        checkForClosed();
+        FakeDataSource.pause(options.getCommitLatency());
+        if (dataSource.isFailing(options.getCommitFailureRate())) {
+            throw new SQLNonTransientConnectionException("Injected commit failure", "08S01");
+        }
+        dataSource.onCommit();
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        checkForClosed();
+        FakeDataSource.pause(options.getRollbackLatency());
+        dataSource.onRollback();
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            dataSource.onClose();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    private void checkForClosed() throws SQLException {
+        if (isClosed()) {
+            throw new SQLNonTransientConnectionException("Connection is closed", "08003");
+        }
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public void setCatalog(String catalog) {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public String getCatalog() {
+        return catalog;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) {
+        this.transactionIsolation = level;
+    }
+
+    @Override
+    public int getTransactionIsolation() {
+        return transactionIsolation;
+    }
+
+    @Override
+    public SQLWarning getWarnings() {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() {
+
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkForClosed();
+        return FakeStatements.createStatement(this, null);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        checkForClosed();
+        return FakeStatements.createPreparedStatement(this, sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        checkForClosed();
+        return FakeStatements.createCallableStatement(this, sql);
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void setHoldability(int holdability) {
+        this.holdability = holdability;
+    }
+
+    @Override
+    public int getHoldability() {
+        return holdability;
+    }
+
+    @Override
+    public Savepoint setSavepoint() {
+        return new FakeSavepoint(++ savepointCount, null);
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) {
+        return new FakeSavepoint(++ savepointCount, name);
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        checkForClosed();
+        FakeDataSource.pause(options.getRollbackLatency());
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) {
+
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        checkForClosed();
+        return FakeStatements.createStatement(this, null);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql,
+                                              int resultSetType,
+                                              int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        checkForClosed();
+        return FakeStatements.createPreparedStatement(this, sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql,
+                                         int resultSetType,
+                                         int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        checkForClosed();
+        return FakeStatements.createCallableStatement(this, sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        checkForClosed();
+        return FakeStatements.createPreparedStatement(this, sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        checkForClosed();
+        return FakeStatements.createPreparedStatement(this, sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        checkForClosed();
+        return FakeStatements.createPreparedStatement(this, sql);
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public boolean isValid(int timeout) {
+        return !isClosed();
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        throw new SQLClientInfoException();
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        throw new SQLClientInfoException();
+    }
+
+    @Override
+    public String getClientInfo(String name) {
+        return null;
+    }
+
+    @Override
+    public Properties getClientInfo() {
+        return new Properties();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public void setSchema(String schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public String getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void abort(Executor executor) {
+        close();
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) {
+
+    }
+
+    @Override
+    public int getNetworkTimeout() {
+        return 0;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private static class FakeSavepoint implements Savepoint {
+
+        private int id;
+        private String name;
+
+        FakeSavepoint(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public int getSavepointId() {
+            return id;
+        }
+
+        @Override
+        public String getSavepointName() {
+            return name;
+        }
+
+    }
+
+}
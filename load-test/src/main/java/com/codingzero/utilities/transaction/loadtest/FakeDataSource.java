@@ -0,0 +1,207 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A data source without a database behind it. Its connections sleep for the configured latencies and fail
+ * at the configured rates, so that the transaction code can be loaded on any machine.
+ */
+public class FakeDataSource implements DataSource {
+
+    private FakeDataSourceOptions options;
+    private Semaphore connectionLimit;
+    private AtomicInteger openConnectionCount;
+    private LongAdder connectionCount;
+    private LongAdder statementCount;
+    private LongAdder commitCount;
+    private LongAdder rollbackCount;
+    private LongAdder injectedFailureCount;
+
+    public FakeDataSource() {
+        this(FakeDataSourceOptions.create());
+    }
+
+    public FakeDataSource(FakeDataSourceOptions options) {
+        this.options = options.copy();
+        this.connectionLimit = this.options.getMaxConnections() > 0
+                ? new Semaphore(this.options.getMaxConnections(), true) : null;
+        this.openConnectionCount = new AtomicInteger();
+        this.connectionCount = new LongAdder();
+        this.statementCount = new LongAdder();
+        this.commitCount = new LongAdder();
+        this.rollbackCount = new LongAdder();
+        this.injectedFailureCount = new LongAdder();
+    }
+
+    public FakeDataSourceOptions getOptions() {
+        return options;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquirePermit();
+        try {
+            pause(options.getConnectLatency());
+            if (isFailing(options.getConnectFailureRate())) {
+                throw new SQLTransientConnectionException("Injected connection failure", "08001");
+            }
+        } catch (SQLException | RuntimeException e) {
+            releasePermit();
+            throw e;
+        }
+        openConnectionCount.incrementAndGet();
+        connectionCount.increment();
+        return new FakeConnection(this);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private void acquirePermit() throws SQLException {
+        if (null == connectionLimit) {
+            return;
+        }
+        try {
+            if (!connectionLimit.tryAcquire(options.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Timed out waiting for one of " + options.getMaxConnections() + " connections", "08001");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a connection", "08001", e);
+        }
+    }
+
+    private void releasePermit() {
+        if (null != connectionLimit) {
+            connectionLimit.release();
+        }
+    }
+
+    void onClose() {
+        openConnectionCount.decrementAndGet();
+        releasePermit();
+    }
+
+    void onStatement() {
+        statementCount.increment();
+    }
+
+    void onCommit() {
+        commitCount.increment();
+    }
+
+    void onRollback() {
+        rollbackCount.increment();
+    }
+
+    /**
+     * Draws whether the next call fails, and counts it if so.
+     */
+    boolean isFailing(double rate) {
+        if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate) {
+            return false;
+        }
+        injectedFailureCount.increment();
+        return true;
+    }
+
+    /**
+     * Sleeps for the next value of the latency, without giving up on interrupts.
+     */
+    static void pause(Latency latency) {
+        long nanos = latency.nextNanos();
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        boolean interrupted = false;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getOpenConnectionCount() {
+        return openConnectionCount.get();
+    }
+
+    public long getConnectionCount() {
+        return connectionCount.sum();
+    }
+
+    public long getStatementCount() {
+        return statementCount.sum();
+    }
+
+    public long getCommitCount() {
+        return commitCount.sum();
+    }
+
+    public long getRollbackCount() {
+        return rollbackCount.sum();
+    }
+
+    public long getInjectedFailureCount() {
+        return injectedFailureCount.sum();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return (int) TimeUnit.MILLISECONDS.toSeconds(options.getConnectTimeoutMillis());
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies and fault rates simulated by a <tt>FakeDataSource</tt>, read once when it is constructed.
+ */
+public class FakeDataSourceOptions {
+
+    private int maxConnections;
+    private long connectTimeoutMillis;
+    private Latency connectLatency;
+    private Latency statementLatency;
+    private Latency commitLatency;
+    private Latency rollbackLatency;
+    private double connectFailureRate;
+    private double statementFailureRate;
+    private double commitFailureRate;
+
+    protected FakeDataSourceOptions() {
+        this.maxConnections = 0;
+        this.connectTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+        this.connectLatency = Latency.none();
+        this.statementLatency = Latency.none();
+        this.commitLatency = Latency.none();
+        this.rollbackLatency = Latency.none();
+        this.connectFailureRate = 0;
+        this.statementFailureRate = 0;
+        this.commitFailureRate = 0;
+    }
+
+    public static FakeDataSourceOptions create() {
+        return new FakeDataSourceOptions();
+    }
+
+    /**
+     * Maximum number of open connections, like the connection limit of a database server. Further
+     * <tt>getConnection()</tt> calls wait for one to be closed, 0 means no limit.
+     */
+    public FakeDataSourceOptions maxConnections(int maxConnections) {
+        if (maxConnections < 0) {
+            throw new IllegalArgumentException("Max connections must not be negative.");
+        }
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * How long <tt>getConnection()</tt> waits at the connection limit before it fails.
+     */
+    public FakeDataSourceOptions connectTimeout(long timeout, TimeUnit unit) {
+        this.connectTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * Time to open a connection, on top of any wait for the connection limit.
+     */
+    public FakeDataSourceOptions connectLatency(Latency latency) {
+        this.connectLatency = latency;
+        return this;
+    }
+
+    public Latency getConnectLatency() {
+        return connectLatency;
+    }
+
+    /**
+     * Time to execute a statement or a batch.
+     */
+    public FakeDataSourceOptions statementLatency(Latency latency) {
+        this.statementLatency = latency;
+        return this;
+    }
+
+    public Latency getStatementLatency() {
+        return statementLatency;
+    }
+
+    public FakeDataSourceOptions commitLatency(Latency latency) {
+        this.commitLatency = latency;
+        return this;
+    }
+
+    public Latency getCommitLatency() {
+        return commitLatency;
+    }
+
+    public FakeDataSourceOptions rollbackLatency(Latency latency) {
+        this.rollbackLatency = latency;
+        return this;
+    }
+
+    public Latency getRollbackLatency() {
+        return rollbackLatency;
+    }
+
+    /**
+     * Share of <tt>getConnection()</tt> calls failing with a transient connection exception.
+     */
+    public FakeDataSourceOptions connectFailureRate(double rate) {
+        this.connectFailureRate = checkForRate(rate);
+        return this;
+    }
+
+    public double getConnectFailureRate() {
+        return connectFailureRate;
+    }
+
+    /**
+     * Share of statement executions failing with a deadlock, which the retrying executor retries.
+     */
+    public FakeDataSourceOptions statementFailureRate(double rate) {
+        this.statementFailureRate = checkForRate(rate);
+        return this;
+    }
+
+    public double getStatementFailureRate() {
+        return statementFailureRate;
+    }
+
+    /**
+     * Share of commits failing like a connection lost during the commit.
+     */
+    public FakeDataSourceOptions commitFailureRate(double rate) {
+        this.commitFailureRate = checkForRate(rate);
+        return this;
+    }
+
+    public double getCommitFailureRate() {
+        return commitFailureRate;
+    }
+
+    private static double checkForRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Rate need to be between 0 and 1, " + rate);
+        }
+        return rate;
+    }
+
+    FakeDataSourceOptions copy() {
+        FakeDataSourceOptions copy = new FakeDataSourceOptions();
+        copy.maxConnections = maxConnections;
+        copy.connectTimeoutMillis = connectTimeoutMillis;
+        copy.connectLatency = connectLatency;
+        copy.statementLatency = statementLatency;
+        copy.commitLatency = commitLatency;
+        copy.rollbackLatency = rollbackLatency;
+        copy.connectFailureRate = connectFailureRate;
+        copy.statementFailureRate = statementFailureRate;
+        copy.commitFailureRate = commitFailureRate;
+        return copy;
+    }
+
+}
@@ -0,0 +1,333 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLNonTransientException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Statements and result sets of a <tt>FakeConnection</tt>, as proxies since only a handful of their methods
+ * matter. Every execution takes the statement latency and fails at the statement failure rate, queries
+ * return a single row of ones.
+ *
+ * Executions end early with a <tt>SQLTimeoutException</tt> when the statement is cancelled or its query
+ * timeout runs out, like with a real driver.
+ */
+final class FakeStatements {
+
+    private static final String QUERY_CANCELED = "57014";
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final int MYSQL_DEADLOCK = 1213;
+
+    private FakeStatements() {
+
+    }
+
+    static Statement createStatement(FakeConnection connection, String sql) {
+        return newProxy(Statement.class, new StatementHandler(connection, sql));
+    }
+
+    static PreparedStatement createPreparedStatement(FakeConnection connection, String sql) {
+        return newProxy(PreparedStatement.class, new StatementHandler(connection, sql));
+    }
+
+    static CallableStatement createCallableStatement(FakeConnection connection, String sql) {
+        return newProxy(CallableStatement.class, new StatementHandler(connection, sql));
+    }
+
+    private static <T> T newProxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakeStatements.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args, String name) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return name + "@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+    }
+
+    private static Object unwrap(Object proxy, Class<?> iface) throws SQLException {
+        if (iface.isInstance(proxy)) {
+            return proxy;
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    /**
+     * The value of a primitive type, or null for any other type.
+     */
+    private static Object valueOf(Class<?> type, long value) {
+        if (type == int.class) {
+            return (int) value;
+        } else if (type == long.class) {
+            return value;
+        } else if (type == boolean.class) {
+            return 0 != value;
+        } else if (type == short.class) {
+            return (short) value;
+        } else if (type == byte.class) {
+            return (byte) value;
+        } else if (type == double.class) {
+            return (double) value;
+        } else if (type == float.class) {
+            return (float) value;
+        } else if (type == char.class) {
+            return (char) value;
+        }
+        return null;
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private FakeConnection connection;
+        private FakeDataSource dataSource;
+        private String sql;
+        private volatile boolean closed;
+        private volatile boolean cancelled;
+        private volatile Thread executingThread;
+        private int queryTimeout;
+        private int batchSize;
+        private ResultSet resultSet;
+        private int updateCount;
+
+        StatementHandler(FakeConnection connection, String sql) {
+            this.connection = connection;
+            this.dataSource = connection.getDataSource();
+            this.sql = sql;
+            this.closed = false;
+            this.cancelled = false;
+            this.executingThread = null;
+            this.queryTimeout = 0;
+            this.batchSize = 0;
+            this.resultSet = null;
+            this.updateCount = -1;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args, "FakeStatement[" + sql + "]");
+            }
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed || connection.isClosed();
+                case "getConnection":
+                    return connection;
+                case "cancel":
+                    cancel();
+                    return null;
+                case "setQueryTimeout":
+                    queryTimeout = (Integer) args[0];
+                    return null;
+                case "getQueryTimeout":
+                    return queryTimeout;
+                case "addBatch":
+                    checkForClosed();
+                    batchSize ++;
+                    return null;
+                case "clearBatch":
+                    batchSize = 0;
+                    return null;
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return executeBatch(method.getReturnType() == long[].class);
+                case "executeQuery":
+                    execute();
+                    resultSet = newProxy(ResultSet.class, new ResultSetHandler((Statement) proxy));
+                    return resultSet;
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    execute();
+                    return valueOf(method.getReturnType(), 1);
+                case "execute":
+                    execute();
+                    resultSet = null;
+                    updateCount = 1;
+                    return false;
+                case "getResultSet":
+                    return resultSet;
+                case "getUpdateCount":
+                case "getLargeUpdateCount":
+                    int count = updateCount;
+                    updateCount = -1;
+                    return valueOf(method.getReturnType(), count);
+                case "getMoreResults":
+                    resultSet = null;
+                    updateCount = -1;
+                    return false;
+                case "unwrap":
+                    return unwrap(proxy, (Class<?>) args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                default:
+                    if (name.startsWith("set") || name.startsWith("clear")) {
+                        checkForClosed();
+                    }
+                    return valueOf(method.getReturnType(), 0);
+            }
+        }
+
+        private Object executeBatch(boolean large) throws SQLException {
+            int size = batchSize;
+            batchSize = 0;
+            execute();
+            if (large) {
+                long[] counts = new long[size];
+                Arrays.fill(counts, 1);
+                return counts;
+            }
+            int[] counts = new int[size];
+            Arrays.fill(counts, 1);
+            return counts;
+        }
+
+        private void execute() throws SQLException {
+            checkForClosed();
+            long nanos = dataSource.getOptions().getStatementLatency().nextNanos();
+            long timeoutNanos = queryTimeout > 0 ? TimeUnit.SECONDS.toNanos(queryTimeout) : Long.MAX_VALUE;
+            cancelled = false;
+            executingThread = Thread.currentThread();
+            try {
+                long deadline = System.nanoTime() + Math.min(nanos, timeoutNanos);
+                long remaining;
+                while (!cancelled && (remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+            } finally {
+                executingThread = null;
+            }
+            if (cancelled) {
+                throw new SQLTimeoutException("Statement cancelled", QUERY_CANCELED);
+            }
+            if (timeoutNanos < nanos) {
+                throw new SQLTimeoutException("Query timeout of " + queryTimeout + "s exceeded", QUERY_CANCELED);
+            }
+            checkForClosed();
+            dataSource.onStatement();
+            if (dataSource.isFailing(dataSource.getOptions().getStatementFailureRate())) {
+                throw new SQLTransactionRollbackException("Injected deadlock", SERIALIZATION_FAILURE, MYSQL_DEADLOCK);
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            Thread thread = executingThread;
+            if (null != thread) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void checkForClosed() throws SQLException {
+            if (closed || connection.isClosed()) {
+                throw new SQLNonTransientException("Statement is closed");
+            }
+        }
+
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private Statement statement;
+        private int row;
+        private boolean closed;
+
+        ResultSetHandler(Statement statement) {
+            this.statement = statement;
+            this.row = 0;
+            this.closed = false;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args, "FakeResultSet");
+            }
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getStatement":
+                    return statement;
+                case "next":
+                    checkForClosed();
+                    return ++ row == 1;
+                case "wasNull":
+                    return false;
+                case "getMetaData":
+                    throw new SQLFeatureNotSupportedException();
+                case "getString":
+                case "getNString":
+                    checkForRow();
+                    return "1";
+                case "getObject":
+                    checkForRow();
+                    return null != args && args.length > 1 && args[1] instanceof Class
+                            ? getObject((Class<?>) args[1]) : 1L;
+                case "getBigDecimal":
+                    checkForRow();
+                    return BigDecimal.ONE;
+                case "unwrap":
+                    return unwrap(proxy, (Class<?>) args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                default:
+                    if (name.startsWith("get") && method.getReturnType().isPrimitive()) {
+                        checkForRow();
+                        return valueOf(method.getReturnType(), 1);
+                    }
+                    return valueOf(method.getReturnType(), 0);
+            }
+        }
+
+        private Object getObject(Class<?> type) throws SQLException {
+            if (type == String.class) {
+                return "1";
+            } else if (type == Integer.class) {
+                return 1;
+            } else if (type == Long.class) {
+                return 1L;
+            } else if (type == BigDecimal.class) {
+                return BigDecimal.ONE;
+            }
+            throw new SQLFeatureNotSupportedException("Cannot convert to " + type.getName());
+        }
+
+        private void checkForClosed() throws SQLException {
+            if (closed) {
+                throw new SQLNonTransientException("Result set is closed");
+            }
+        }
+
+        private void checkForRow() throws SQLException {
+            checkForClosed();
+            if (1 != row) {
+                throw new SQLNonTransientException("Result set is not on a row");
+            }
+        }
+
+    }
+
+}
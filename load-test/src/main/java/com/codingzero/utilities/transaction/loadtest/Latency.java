@@ -0,0 +1,131 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simulated latency, fixed, uniform between two bounds or exponential around a mean.
+ *
+ * Parsed from <tt>0</tt>, <tt>2ms</tt>, <tt>1ms..5ms</tt> or <tt>exp:2ms</tt>, with the units
+ * <tt>us</tt>, <tt>ms</tt> and <tt>s</tt>.
+ */
+public class Latency {
+
+    private static final Latency NONE = new Latency(0, 0, false);
+
+    private long minNanos;
+    private long maxNanos;
+    private boolean exponential;
+
+    private Latency(long minNanos, long maxNanos, boolean exponential) {
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+        this.exponential = exponential;
+    }
+
+    public static Latency none() {
+        return NONE;
+    }
+
+    public static Latency fixed(long time, TimeUnit unit) {
+        checkForNegative(time);
+        return new Latency(unit.toNanos(time), unit.toNanos(time), false);
+    }
+
+    public static Latency uniform(long min, long max, TimeUnit unit) {
+        checkForNegative(min);
+        if (max < min) {
+            throw new IllegalArgumentException("Max latency " + max + " is less than min latency " + min);
+        }
+        return new Latency(unit.toNanos(min), unit.toNanos(max), false);
+    }
+
+    public static Latency exponential(long mean, TimeUnit unit) {
+        checkForNegative(mean);
+        return new Latency(unit.toNanos(mean), unit.toNanos(mean), true);
+    }
+
+    public static Latency parse(String text) {
+        String value = text.trim();
+        if (value.startsWith("exp:")) {
+            return new Latency(parseNanos(value.substring(4)), parseNanos(value.substring(4)), true);
+        }
+        int range = value.indexOf("..");
+        if (range >= 0) {
+            long min = parseNanos(value.substring(0, range));
+            long max = parseNanos(value.substring(range + 2));
+            return uniform(min, max, TimeUnit.NANOSECONDS);
+        }
+        return fixed(parseNanos(value), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Parses a duration like <tt>250us</tt>, <tt>2ms</tt> or <tt>1s</tt>, a bare number is in milliseconds.
+     */
+    public static long parseNanos(String text) {
+        String value = text.trim();
+        TimeUnit unit = TimeUnit.MILLISECONDS;
+        if (value.endsWith("us")) {
+            unit = TimeUnit.MICROSECONDS;
+            value = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("ms")) {
+            value = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("s")) {
+            unit = TimeUnit.SECONDS;
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            long time = Long.parseLong(value.trim());
+            checkForNegative(time);
+            return unit.toNanos(time);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid duration, " + text);
+        }
+    }
+
+    private static void checkForNegative(long time) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Latency must not be negative, " + time);
+        }
+    }
+
+    public boolean isNone() {
+        return 0 == maxNanos;
+    }
+
+    public long nextNanos() {
+        if (isNone()) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (exponential) {
+            return (long) (-Math.log(1.0 - random.nextDouble()) * minNanos);
+        }
+        if (minNanos == maxNanos) {
+            return minNanos;
+        }
+        return minNanos + (long) (random.nextDouble() * (maxNanos - minNanos));
+    }
+
+    @Override
+    public String toString() {
+        if (isNone()) {
+            return "0";
+        }
+        if (exponential) {
+            return "exp:" + format(minNanos);
+        }
+        if (minNanos == maxNanos) {
+            return format(minNanos);
+        }
+        return format(minNanos) + ".." + format(maxNanos);
+    }
+
+    private static String format(long nanos) {
+        if (nanos % TimeUnit.MILLISECONDS.toNanos(1) == 0) {
+            return TimeUnit.NANOSECONDS.toMillis(nanos) + "ms";
+        }
+        return TimeUnit.NANOSECONDS.toMicros(nanos) + "us";
+    }
+
+}
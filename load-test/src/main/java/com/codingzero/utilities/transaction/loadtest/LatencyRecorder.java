@@ -0,0 +1,91 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+/**
+ * Latencies of one load worker, in log-linear buckets of 128 steps per power of two, so percentiles are off
+ * by less than 1%. Not thread safe, recorders of the workers are merged once the run is over.
+ */
+class LatencyRecorder {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private long[] counts;
+    private long count;
+    private long sum;
+    private long max;
+
+    LatencyRecorder() {
+        this.counts = new long[BUCKET_COUNT];
+        this.count = 0;
+        this.sum = 0;
+        this.max = 0;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long lowerBoundOf(int index) {
+        int bucket = index / SUB_BUCKET_COUNT;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        if (0 == bucket) {
+            return subBucket;
+        }
+        return ((long) (SUB_BUCKET_COUNT + subBucket)) << (bucket - 1);
+    }
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)] ++;
+        count ++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    void add(LatencyRecorder other) {
+        for (int i = 0; i < BUCKET_COUNT; i ++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getMean() {
+        return 0 == count ? 0 : (double) sum / count;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile, from 0 to 100, capped by the max.
+     */
+    long getPercentile(double percentile) {
+        if (0 == count) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i ++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long upperBound = i + 1 < BUCKET_COUNT ? lowerBoundOf(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(upperBound, max);
+            }
+        }
+        return max;
+    }
+
+}
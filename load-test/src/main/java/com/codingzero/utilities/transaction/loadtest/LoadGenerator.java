@@ -0,0 +1,266 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import com.codingzero.utilities.transaction.TransactionManager;
+import com.codingzero.utilities.transaction.TransactionManagerBuilder;
+import com.codingzero.utilities.transaction.jdbc.ConnectionPoolOptions;
+import com.codingzero.utilities.transaction.jdbc.PooledTransactionHelperProvider;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelperProvider;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelperProviderOptions;
+import com.codingzero.utilities.transaction.manager.RetryOptions;
+import com.codingzero.utilities.transaction.manager.RetryingTransactionExecutor;
+import com.codingzero.utilities.transaction.metrics.DefaultTransactionMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs transactions over <tt>AccountDAO</tt>s on a <tt>FakeDataSource</tt> from a number of worker threads,
+ * through a shared manager, and measures them.
+ *
+ * Each run sets up its own data source, provider and manager, so runs do not affect each other.
+ */
+public class LoadGenerator {
+
+    private static final long ACCOUNT_COUNT = 1_000_000;
+
+    private LoadTestOptions options;
+    private FakeDataSourceOptions dataSourceOptions;
+
+    public LoadGenerator(LoadTestOptions options, FakeDataSourceOptions dataSourceOptions) {
+        this.options = options.copy();
+        this.dataSourceOptions = dataSourceOptions.copy();
+    }
+
+    public LoadResult run() throws InterruptedException {
+        FakeDataSource dataSource = new FakeDataSource(dataSourceOptions);
+        DefaultTransactionMetrics metrics = new DefaultTransactionMetrics();
+        TransactionHelperProvider helperProvider = newHelperProvider(metrics);
+        RetryingTransactionExecutor executor = null;
+        List<Worker> workers;
+        try {
+            TransactionManager manager = newManager();
+            List<AccountDAO> accounts = new ArrayList<>(options.getServices());
+            for (int i = 0; i < options.getServices(); i ++) {
+                AccountDAO account = new AccountDAO(dataSource, helperProvider);
+                manager.register("account-" + i, account);
+                accounts.add(account);
+            }
+            if (options.getRetries() > 0) {
+                executor = new RetryingTransactionExecutor(
+                        manager, RetryOptions.create().maxAttempts(options.getRetries() + 1));
+            }
+            RetryingTransactionExecutor retryingExecutor = executor;
+            workers = runWorkers(() -> {
+                Runnable work = () -> transfer(accounts);
+                if (null != retryingExecutor) {
+                    retryingExecutor.execute(work);
+                } else {
+                    manager.run(work);
+                }
+            });
+        } finally {
+            closeProvider(helperProvider);
+        }
+        LatencyRecorder latencies = new LatencyRecorder();
+        long successCount = 0;
+        long failureCount = 0;
+        Map<String, Long> errors = new HashMap<>();
+        for (Worker worker: workers) {
+            latencies.add(worker.latencies);
+            successCount += worker.successCount;
+            failureCount += worker.failureCount;
+            worker.errors.forEach((error, count) -> errors.merge(error, count, Long::sum));
+        }
+        return new LoadResult(
+                options.copy(),
+                TimeUnit.MILLISECONDS.toNanos(options.getDurationMillis()),
+                latencies,
+                successCount,
+                failureCount,
+                errors,
+                null == executor ? 0 : executor.getRetryCount(),
+                metrics.getConnectionAcquisition().snapshot().getMean(),
+                dataSource.getStatementCount(),
+                dataSource.getOpenConnectionCount());
+    }
+
+    private TransactionHelperProvider newHelperProvider(DefaultTransactionMetrics metrics) {
+        TransactionHelperProviderOptions providerOptions = TransactionHelperProviderOptions.create().metrics(metrics);
+        if (options.getPoolSize() > 0) {
+            return new PooledTransactionHelperProvider(
+                    ConnectionPoolOptions.create().maxSize(options.getPoolSize()), providerOptions);
+        }
+        return new TransactionHelperProvider(providerOptions);
+    }
+
+    private void closeProvider(TransactionHelperProvider helperProvider) {
+        if (helperProvider instanceof PooledTransactionHelperProvider) {
+            ((PooledTransactionHelperProvider) helperProvider).close();
+        }
+    }
+
+    private TransactionManager newManager() {
+        TransactionManagerBuilder builder = TransactionManagerBuilder.create()
+                .scoped(options.isScoped())
+                .threadBound(!options.isScoped());
+        if (options.getTimeoutMillis() > 0) {
+            builder.defaultTimeout(options.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+        return builder.build();
+    }
+
+    private void transfer(List<AccountDAO> accounts) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (AccountDAO account: accounts) {
+            long id = random.nextLong(ACCOUNT_COUNT);
+            for (int i = 0; i < options.getReads(); i ++) {
+                account.selectBalance(id);
+            }
+            for (int i = 0; i < options.getWrites(); i ++) {
+                account.updateBalance(id, 1);
+            }
+        }
+    }
+
+    private List<Worker> runWorkers(Runnable transaction) throws InterruptedException {
+        int threads = options.getThreads();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Worker> workers = new ArrayList<>(threads);
+        List<Thread> workerThreads = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i ++) {
+            Worker worker = new Worker(i, transaction, ready, go);
+            Thread thread = new Thread(worker, "load-worker-" + i);
+            workers.add(worker);
+            workerThreads.add(thread);
+            thread.start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.MILLISECONDS.toNanos(options.getWarmupMillis());
+        long end = measureStart + TimeUnit.MILLISECONDS.toNanos(options.getDurationMillis());
+        for (Worker worker: workers) {
+            worker.schedule(start, measureStart, end);
+        }
+        go.countDown();
+        for (Thread thread: workerThreads) {
+            thread.join();
+        }
+        return workers;
+    }
+
+    /**
+     * Failures are told apart by the type and message of their root cause.
+     */
+    private static String describe(Throwable error) {
+        Throwable cause = error;
+        while (null != cause.getCause() && cause != cause.getCause()) {
+            cause = cause.getCause();
+        }
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    private class Worker implements Runnable {
+
+        private int index;
+        private Runnable transaction;
+        private CountDownLatch ready;
+        private CountDownLatch go;
+        private long start;
+        private long measureStart;
+        private long end;
+        private LatencyRecorder latencies;
+        private long successCount;
+        private long failureCount;
+        private Map<String, Long> errors;
+
+        Worker(int index, Runnable transaction, CountDownLatch ready, CountDownLatch go) {
+            this.index = index;
+            this.transaction = transaction;
+            this.ready = ready;
+            this.go = go;
+            this.latencies = new LatencyRecorder();
+            this.successCount = 0;
+            this.failureCount = 0;
+            this.errors = new HashMap<>();
+        }
+
+        void schedule(long start, long measureStart, long end) {
+            this.start = start;
+            this.measureStart = measureStart;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            ready.countDown();
+            try {
+                go.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            boolean closed = Arrival.CLOSED == options.getArrival();
+            double interval = closed ? 0 : options.getThreads() * (double) TimeUnit.SECONDS.toNanos(1) / options.getRate();
+            long due = start + (long) (interval * index / options.getThreads());
+            while (true) {
+                long begin;
+                if (closed) {
+                    begin = System.nanoTime();
+                    if (begin - end >= 0) {
+                        break;
+                    }
+                } else {
+                    if (due - end >= 0) {
+                        break;
+                    }
+                    waitUntil(due);
+                    begin = due;
+                    due += nextGap(interval);
+                }
+                Throwable error = null;
+                try {
+                    transaction.run();
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+                long finish = System.nanoTime();
+                if (begin - measureStart >= 0) {
+                    record(finish - begin, error);
+                }
+            }
+        }
+
+        private long nextGap(double interval) {
+            if (Arrival.POISSON == options.getArrival()) {
+                return (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * interval);
+            }
+            return (long) interval;
+        }
+
+        private void waitUntil(long due) {
+            long remaining;
+            while ((remaining = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+
+        private void record(long nanos, Throwable error) {
+            latencies.record(nanos);
+            if (null == error) {
+                successCount ++;
+            } else {
+                failureCount ++;
+                errors.merge(describe(error), 1L, Long::sum);
+            }
+        }
+
+    }
+
+}
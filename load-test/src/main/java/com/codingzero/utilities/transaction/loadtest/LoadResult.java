@@ -0,0 +1,166 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput, latency and errors of one load test run. Latencies are of all measured transactions,
+ * failed ones included.
+ */
+public class LoadResult {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private LoadTestOptions options;
+    private long durationNanos;
+    private LatencyRecorder latencies;
+    private long successCount;
+    private long failureCount;
+    private Map<String, Long> errors;
+    private long retryCount;
+    private double acquisitionMeanNanos;
+    private long statementCount;
+    private long leakedConnectionCount;
+
+    LoadResult(LoadTestOptions options,
+               long durationNanos,
+               LatencyRecorder latencies,
+               long successCount,
+               long failureCount,
+               Map<String, Long> errors,
+               long retryCount,
+               double acquisitionMeanNanos,
+               long statementCount,
+               long leakedConnectionCount) {
+        this.options = options;
+        this.durationNanos = durationNanos;
+        this.latencies = latencies;
+        this.successCount = successCount;
+        this.failureCount = failureCount;
+        this.errors = Collections.unmodifiableMap(new TreeMap<>(errors));
+        this.retryCount = retryCount;
+        this.acquisitionMeanNanos = acquisitionMeanNanos;
+        this.statementCount = statementCount;
+        this.leakedConnectionCount = leakedConnectionCount;
+    }
+
+    public LoadTestOptions getOptions() {
+        return options;
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Committed transactions per second.
+     */
+    public double getThroughput() {
+        return successCount * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    public double getMeanLatencyNanos() {
+        return latencies.getMean();
+    }
+
+    /**
+     * Latency at the given percentile, from 0 to 100, within 1%.
+     */
+    public long getLatencyNanos(double percentile) {
+        return latencies.getPercentile(percentile);
+    }
+
+    public long getMaxLatencyNanos() {
+        return latencies.getMax();
+    }
+
+    /**
+     * Failed transactions by the type and message of the root cause.
+     */
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+
+    public long getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Mean time to get a connection from the pool or the data source, over warmup and measurement.
+     */
+    public double getAcquisitionMeanNanos() {
+        return acquisitionMeanNanos;
+    }
+
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Connections still open once the run is over and the pool is closed, anything but 0 is a leak.
+     */
+    public long getLeakedConnectionCount() {
+        return leakedConnectionCount;
+    }
+
+    public static String header() {
+        return String.format(Locale.ROOT, "%7s %10s %10s %8s %8s %8s %8s %8s %8s %8s %8s %10s",
+                "threads", "target/s", "tx/s", "failed", "mean", "p50", "p90", "p99", "p99.9", "max",
+                "retries", "acquire");
+    }
+
+    /**
+     * One row under the <tt>header()</tt>, latencies in milliseconds.
+     */
+    public String toRow() {
+        StringBuilder row = new StringBuilder();
+        row.append(String.format(Locale.ROOT, "%7d %10s %10.1f %8d %8.3f",
+                options.getThreads(),
+                Arrival.CLOSED == options.getArrival() ? "-" : String.format(Locale.ROOT, "%.0f", options.getRate()),
+                getThroughput(),
+                failureCount,
+                toMillis(getMeanLatencyNanos())));
+        for (double percentile: PERCENTILES) {
+            row.append(String.format(Locale.ROOT, " %8.3f", toMillis(getLatencyNanos(percentile))));
+        }
+        row.append(String.format(Locale.ROOT, " %8.3f %8d %10.3f",
+                toMillis(getMaxLatencyNanos()), retryCount, toMillis(acquisitionMeanNanos)));
+        return row.toString();
+    }
+
+    public static String csvHeader() {
+        return "threads,arrival,target_rate,throughput,successes,failures,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,"
+                + "max_ms,retries,acquire_mean_ms,statements,leaked_connections";
+    }
+
+    public String toCsv() {
+        StringBuilder row = new StringBuilder();
+        row.append(String.format(Locale.ROOT, "%d,%s,%.0f,%.3f,%d,%d,%.6f",
+                options.getThreads(),
+                options.getArrival().name().toLowerCase(Locale.ROOT),
+                options.getRate(),
+                getThroughput(),
+                successCount,
+                failureCount,
+                toMillis(getMeanLatencyNanos())));
+        for (double percentile: PERCENTILES) {
+            row.append(String.format(Locale.ROOT, ",%.6f", toMillis(getLatencyNanos(percentile))));
+        }
+        row.append(String.format(Locale.ROOT, ",%.6f,%d,%.6f,%d,%d",
+                toMillis(getMaxLatencyNanos()), retryCount, toMillis(acquisitionMeanNanos),
+                statementCount, leakedConnectionCount));
+        return row.toString();
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+}
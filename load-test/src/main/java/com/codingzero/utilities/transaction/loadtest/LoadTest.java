@@ -0,0 +1,233 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line entry of the load test. Runs the workload once per thread count and prints a row of
+ * throughput and latency for each run.
+ *
+ * <pre>
+ * java -jar load-test.jar --threads=1,2,4,8,16 --statementLatency=exp:1ms --commitLatency=2ms
+ * java -jar load-test.jar --threads=8 --arrival=poisson --rate=2000 --pool=8 --retries=3
+ * </pre>
+ */
+public class LoadTest {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -jar load-test.jar [--option=value]...",
+            "",
+            "Load:",
+            "  --threads=1,2,4          worker threads, one run per value",
+            "  --duration=10s           measured time of a run",
+            "  --warmup=2s              unmeasured time before it",
+            "  --arrival=closed         closed, fixed or poisson",
+            "  --rate=1000              transactions per second for fixed and poisson arrivals",
+            "  --services=2             DAOs in each transaction",
+            "  --reads=1 --writes=1     selects and updates per DAO and transaction",
+            "Library:",
+            "  --manager=threadBound    threadBound or scoped",
+            "  --pool=0                 connection pool size, 0 for none",
+            "  --retries=0              retries of deadlocked transactions",
+            "  --timeout=0              transaction deadline",
+            "Fake database, latencies as 2ms, 500us..3ms or exp:1ms:",
+            "  --maxConnections=0       connection limit, 0 for none",
+            "  --connectTimeout=30s     wait at the connection limit",
+            "  --connectLatency=0",
+            "  --statementLatency=0",
+            "  --commitLatency=0",
+            "  --rollbackLatency=0",
+            "  --connectFailureRate=0   share of failing getConnection() calls",
+            "  --statementFailureRate=0 share of statements failing with a deadlock",
+            "  --commitFailureRate=0    share of failing commits",
+            "Output:",
+            "  --csv=path               also write the rows to a CSV file");
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.create();
+        FakeDataSourceOptions dataSourceOptions = FakeDataSourceOptions.create();
+        List<Integer> threadCounts = new ArrayList<>();
+        threadCounts.add(1);
+        String arrival = "closed";
+        double rate = 0;
+        Path csv = null;
+        try {
+            for (String arg: args) {
+                if ("-h".equals(arg) || "--help".equals(arg)) {
+                    System.out.println(USAGE);
+                    return;
+                }
+                int separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException("Expected --option=value, got " + arg);
+                }
+                String name = arg.substring(2, separator);
+                String value = arg.substring(separator + 1);
+                switch (name) {
+                    case "threads":
+                        threadCounts = parseThreadCounts(value);
+                        for (int threads: threadCounts) {
+                            options.threads(threads);
+                        }
+                        break;
+                    case "duration":
+                        options.duration(Latency.parseNanos(value), TimeUnit.NANOSECONDS);
+                        break;
+                    case "warmup":
+                        options.warmup(Latency.parseNanos(value), TimeUnit.NANOSECONDS);
+                        break;
+                    case "arrival":
+                        arrival = value;
+                        break;
+                    case "rate":
+                        rate = Double.parseDouble(value);
+                        break;
+                    case "services":
+                        options.services(Integer.parseInt(value));
+                        break;
+                    case "reads":
+                        options.statements(Integer.parseInt(value), options.getWrites());
+                        break;
+                    case "writes":
+                        options.statements(options.getReads(), Integer.parseInt(value));
+                        break;
+                    case "manager":
+                        options.scoped(parseScoped(value));
+                        break;
+                    case "pool":
+                        options.poolSize(Integer.parseInt(value));
+                        break;
+                    case "retries":
+                        options.retries(Integer.parseInt(value));
+                        break;
+                    case "timeout":
+                        options.timeout(Latency.parseNanos(value), TimeUnit.NANOSECONDS);
+                        break;
+                    case "maxConnections":
+                        dataSourceOptions.maxConnections(Integer.parseInt(value));
+                        break;
+                    case "connectTimeout":
+                        dataSourceOptions.connectTimeout(Latency.parseNanos(value), TimeUnit.NANOSECONDS);
+                        break;
+                    case "connectLatency":
+                        dataSourceOptions.connectLatency(Latency.parse(value));
+                        break;
+                    case "statementLatency":
+                        dataSourceOptions.statementLatency(Latency.parse(value));
+                        break;
+                    case "commitLatency":
+                        dataSourceOptions.commitLatency(Latency.parse(value));
+                        break;
+                    case "rollbackLatency":
+                        dataSourceOptions.rollbackLatency(Latency.parse(value));
+                        break;
+                    case "connectFailureRate":
+                        dataSourceOptions.connectFailureRate(Double.parseDouble(value));
+                        break;
+                    case "statementFailureRate":
+                        dataSourceOptions.statementFailureRate(Double.parseDouble(value));
+                        break;
+                    case "commitFailureRate":
+                        dataSourceOptions.commitFailureRate(Double.parseDouble(value));
+                        break;
+                    case "csv":
+                        csv = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            options.arrival(Arrival.valueOf(arrival.toUpperCase(Locale.ROOT)), rate);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        printSetup(options, dataSourceOptions);
+        List<LoadResult> results = new ArrayList<>();
+        System.out.println(LoadResult.header());
+        for (int threads: threadCounts) {
+            LoadResult result = new LoadGenerator(options.threads(threads), dataSourceOptions).run();
+            results.add(result);
+            System.out.println(result.toRow());
+            for (Map.Entry<String, Long> error: result.getErrors().entrySet()) {
+                System.out.println(String.format(Locale.ROOT, "%7s %d x %s", "", error.getValue(), error.getKey()));
+            }
+            if (result.getLeakedConnectionCount() > 0) {
+                System.out.println(String.format(Locale.ROOT, "%7s %d connection(s) left open",
+                        "", result.getLeakedConnectionCount()));
+            }
+        }
+        if (null != csv) {
+            writeCsv(csv, results);
+        }
+    }
+
+    private static List<Integer> parseThreadCounts(String value) {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (String threads: value.split(",")) {
+            threadCounts.add(Integer.parseInt(threads.trim()));
+        }
+        return threadCounts;
+    }
+
+    private static boolean parseScoped(String value) {
+        if ("scoped".equalsIgnoreCase(value)) {
+            return true;
+        } else if ("threadBound".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Manager need to be threadBound or scoped, " + value);
+    }
+
+    private static void printSetup(LoadTestOptions options, FakeDataSourceOptions dataSourceOptions) {
+        System.out.println(String.format(Locale.ROOT,
+                "%s arrivals, %d service(s) x %d read(s) + %d write(s), %s manager, pool %s, retries %d, timeout %s",
+                options.getArrival().name().toLowerCase(Locale.ROOT),
+                options.getServices(),
+                options.getReads(),
+                options.getWrites(),
+                options.isScoped() ? "scoped" : "thread bound",
+                options.getPoolSize() > 0 ? String.valueOf(options.getPoolSize()) : "none",
+                options.getRetries(),
+                options.getTimeoutMillis() > 0 ? options.getTimeoutMillis() + "ms" : "none"));
+        System.out.println(String.format(Locale.ROOT,
+                "latency connect %s, statement %s, commit %s, rollback %s; failure rate connect %s, "
+                        + "statement %s, commit %s; max connections %s",
+                dataSourceOptions.getConnectLatency(),
+                dataSourceOptions.getStatementLatency(),
+                dataSourceOptions.getCommitLatency(),
+                dataSourceOptions.getRollbackLatency(),
+                dataSourceOptions.getConnectFailureRate(),
+                dataSourceOptions.getStatementFailureRate(),
+                dataSourceOptions.getCommitFailureRate(),
+                dataSourceOptions.getMaxConnections() > 0
+                        ? String.valueOf(dataSourceOptions.getMaxConnections()) : "unlimited"));
+        System.out.println(String.format(Locale.ROOT, "%d ms warmup, %d ms measured per run, latencies in ms",
+                options.getWarmupMillis(), options.getDurationMillis()));
+    }
+
+    private static void writeCsv(Path path, List<LoadResult> results) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (null != parent) {
+            Files.createDirectories(parent);
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            writer.println(LoadResult.csvHeader());
+            for (LoadResult result: results) {
+                writer.println(result.toCsv());
+            }
+        }
+    }
+
+}
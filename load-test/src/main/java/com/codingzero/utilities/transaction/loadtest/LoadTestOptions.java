@@ -0,0 +1,211 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workload and transaction setup of a load test run.
+ */
+public class LoadTestOptions {
+
+    private int threads;
+    private long durationMillis;
+    private long warmupMillis;
+    private Arrival arrival;
+    private double rate;
+    private int services;
+    private int reads;
+    private int writes;
+    private boolean scoped;
+    private int poolSize;
+    private int retries;
+    private long timeoutMillis;
+
+    protected LoadTestOptions() {
+        this.threads = 1;
+        this.durationMillis = TimeUnit.SECONDS.toMillis(10);
+        this.warmupMillis = TimeUnit.SECONDS.toMillis(2);
+        this.arrival = Arrival.CLOSED;
+        this.rate = 0;
+        this.services = 2;
+        this.reads = 1;
+        this.writes = 1;
+        this.scoped = false;
+        this.poolSize = 0;
+        this.retries = 0;
+        this.timeoutMillis = 0;
+    }
+
+    public static LoadTestOptions create() {
+        return new LoadTestOptions();
+    }
+
+    /**
+     * Number of worker threads running transactions.
+     */
+    public LoadTestOptions threads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Threads need to be greater than 0.");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * How long transactions are measured, after the warmup.
+     */
+    public LoadTestOptions duration(long time, TimeUnit unit) {
+        if (time <= 0) {
+            throw new IllegalArgumentException("Duration need to be greater than 0.");
+        }
+        this.durationMillis = unit.toMillis(time);
+        return this;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * How long transactions run unmeasured before the measurement starts.
+     */
+    public LoadTestOptions warmup(long time, TimeUnit unit) {
+        this.warmupMillis = unit.toMillis(time);
+        return this;
+    }
+
+    public long getWarmupMillis() {
+        return warmupMillis;
+    }
+
+    /**
+     * Closed loop, or a target rate in transactions per second over all threads with evenly spaced
+     * or Poisson arrivals.
+     */
+    public LoadTestOptions arrival(Arrival arrival, double rate) {
+        if (Arrival.CLOSED != arrival && rate <= 0) {
+            throw new IllegalArgumentException("Rate need to be greater than 0 for " + arrival + " arrivals.");
+        }
+        this.arrival = arrival;
+        this.rate = Arrival.CLOSED == arrival ? 0 : rate;
+        return this;
+    }
+
+    public Arrival getArrival() {
+        return arrival;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Number of DAOs registered into the manager, each one joins every transaction.
+     */
+    public LoadTestOptions services(int services) {
+        if (services <= 0) {
+            throw new IllegalArgumentException("Services need to be greater than 0.");
+        }
+        this.services = services;
+        return this;
+    }
+
+    public int getServices() {
+        return services;
+    }
+
+    /**
+     * Selects and updates each DAO runs in a transaction.
+     */
+    public LoadTestOptions statements(int reads, int writes) {
+        if (reads < 0 || writes < 0) {
+            throw new IllegalArgumentException("Statement counts must not be negative.");
+        }
+        this.reads = reads;
+        this.writes = writes;
+        return this;
+    }
+
+    public int getReads() {
+        return reads;
+    }
+
+    public int getWrites() {
+        return writes;
+    }
+
+    /**
+     * Uses a scoped manager instead of a thread bound one.
+     */
+    public LoadTestOptions scoped(boolean scoped) {
+        this.scoped = scoped;
+        return this;
+    }
+
+    public boolean isScoped() {
+        return scoped;
+    }
+
+    /**
+     * Size of the connection pool in front of the data source, 0 opens a connection per transaction.
+     */
+    public LoadTestOptions poolSize(int poolSize) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("Pool size must not be negative.");
+        }
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Retries of a transaction failing with a deadlock, 0 runs each one once.
+     */
+    public LoadTestOptions retries(int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("Retries must not be negative.");
+        }
+        this.retries = retries;
+        return this;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Deadline of each transaction, 0 for none.
+     */
+    public LoadTestOptions timeout(long timeout, TimeUnit unit) {
+        this.timeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    LoadTestOptions copy() {
+        LoadTestOptions copy = new LoadTestOptions();
+        copy.threads = threads;
+        copy.durationMillis = durationMillis;
+        copy.warmupMillis = warmupMillis;
+        copy.arrival = arrival;
+        copy.rate = rate;
+        copy.services = services;
+        copy.reads = reads;
+        copy.writes = writes;
+        copy.scoped = scoped;
+        copy.poolSize = poolSize;
+        copy.retries = retries;
+        copy.timeoutMillis = timeoutMillis;
+        return copy;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FakeDataSourceTest {
+
+    @Test
+    public void testQuery_SingleRow() throws SQLException {
+        FakeDataSource dataSource = new FakeDataSource();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            ResultSet rs = statement.executeQuery();
+            assertTrue(rs.next());
+            assertEquals(1, rs.getLong(1));
+            assertEquals(false, rs.next());
+        }
+        assertEquals(1, dataSource.getStatementCount());
+        assertEquals(0, dataSource.getOpenConnectionCount());
+    }
+
+    @Test
+    public void testMaxConnections_WaitTimesOut() throws SQLException {
+        FakeDataSource dataSource = new FakeDataSource(FakeDataSourceOptions.create()
+                .maxConnections(1)
+                .connectTimeout(10, TimeUnit.MILLISECONDS));
+        Connection connection = dataSource.getConnection();
+        try {
+            dataSource.getConnection();
+            fail("Expected the connection limit to be reached");
+        } catch (SQLTransientConnectionException e) {
+            //expected
+        }
+        connection.close();
+        dataSource.getConnection().close();
+    }
+
+    @Test(expected = SQLTransactionRollbackException.class)
+    public void testStatementFailure() throws SQLException {
+        FakeDataSource dataSource = new FakeDataSource(FakeDataSourceOptions.create().statementFailureRate(1));
+        dataSource.getConnection().prepareStatement("UPDATE t SET v=1").executeUpdate();
+    }
+
+    @Test
+    public void testCancel_EndsExecution() throws Exception {
+        FakeDataSource dataSource = new FakeDataSource(FakeDataSourceOptions.create()
+                .statementLatency(Latency.fixed(10, TimeUnit.SECONDS)));
+        PreparedStatement statement = dataSource.getConnection().prepareStatement("SELECT 1");
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                statement.cancel();
+            } catch (InterruptedException | SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        canceller.start();
+        long begin = System.nanoTime();
+        try {
+            statement.executeQuery();
+            fail("Expected the statement to be cancelled");
+        } catch (SQLTimeoutException e) {
+            assertTrue(System.nanoTime() - begin < TimeUnit.SECONDS.toNanos(5));
+        }
+        canceller.join();
+    }
+
+    @Test
+    public void testParseLatency() {
+        assertEquals("2ms", Latency.parse("2ms").toString());
+        assertEquals("500us..3ms", Latency.parse("500us..3ms").toString());
+        assertEquals("exp:1ms", Latency.parse("exp:1ms").toString());
+        assertEquals(TimeUnit.SECONDS.toNanos(1), Latency.parseNanos("1s"));
+        assertTrue(Latency.parse("0").isNone());
+    }
+
+}
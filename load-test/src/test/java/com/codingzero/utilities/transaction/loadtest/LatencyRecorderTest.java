@@ -0,0 +1,44 @@
+package com.codingzero.utilities.transaction.loadtest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void testIndexOf_WithinLowerBound() {
+        for (long value: new long[] {0, 1, 127, 128, 255, 256, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyRecorder.indexOf(value);
+            assertTrue(LatencyRecorder.lowerBoundOf(index) <= value);
+            assertTrue(index + 1 == LatencyRecorder.BUCKET_COUNT || value < LatencyRecorder.lowerBoundOf(index + 1));
+        }
+    }
+
+    @Test
+    public void testPercentile_WithinOnePercent() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        for (long value = 1; value <= 100_000; value ++) {
+            recorder.record(value * 1000);
+        }
+        assertEquals(100_000, recorder.getCount());
+        assertEquals(50_000_000, recorder.getPercentile(50), 500_000);
+        assertEquals(99_000_000, recorder.getPercentile(99), 990_000);
+        assertEquals(100_000_000, recorder.getPercentile(100));
+        assertEquals(100_000_000, recorder.getMax());
+    }
+
+    @Test
+    public void testAdd() {
+        LatencyRecorder first = new LatencyRecorder();
+        LatencyRecorder second = new LatencyRecorder();
+        first.record(10);
+        second.record(30);
+        first.add(second);
+        assertEquals(2, first.getCount());
+        assertEquals(20, first.getMean(), 0);
+        assertEquals(30, first.getMax());
+    }
+
+}
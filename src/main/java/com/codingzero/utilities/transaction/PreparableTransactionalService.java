@@ -0,0 +1,16 @@
+package com.codingzero.utilities.transaction;
+
+/**
+ * An observer which votes on a transaction before any service commits it.
+ *
+ * The manager asks every preparable service first, if one votes no or fails, all services
+ * roll back and none of them commits.
+ */
+public interface PreparableTransactionalService extends TransactionalService {
+
+    /**
+     * Returns true if the service is able to commit the transaction.
+     */
+    boolean onPrepareTransaction(TransactionContext context);
+
+}
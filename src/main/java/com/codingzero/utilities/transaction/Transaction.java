@@ -1,5 +1,7 @@
 package com.codingzero.utilities.transaction;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * This interface provides client code to control a transaction.
  *
@@ -8,6 +10,22 @@ public interface Transaction {
 
     void start();
 
+    /**
+     * Starts a transaction which only reads, so the database can skip the bookkeeping of writes.
+     * Implementations without a read-only mode start a normal transaction.
+     */
+    default void startReadOnly() {
+        start();
+    }
+
+    /**
+     * Starts a transaction which is rolled back once the given time passed, its running statements are cancelled.
+     * Implementations without deadlines start a normal transaction.
+     */
+    default void start(long timeout, TimeUnit unit) {
+        start();
+    }
+
     void commit();
 
     void rollback();
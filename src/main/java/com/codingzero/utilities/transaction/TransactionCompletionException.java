@@ -0,0 +1,56 @@
+package com.codingzero.utilities.transaction;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown when some services fail to complete a transaction, reports the outcome of every service.
+ */
+public class TransactionCompletionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private String phase;
+    private List<String> completedServices;
+    private Map<String, Throwable> failures;
+
+    public TransactionCompletionException(String phase,
+                                          List<String> completedServices,
+                                          Map<String, Throwable> failures) {
+        super(phase + " failed for services " + failures.keySet()
+                + ", completed for services " + completedServices, failures.values().iterator().next());
+        this.phase = phase;
+        this.completedServices = Collections.unmodifiableList(completedServices);
+        this.failures = Collections.unmodifiableMap(failures);
+        boolean first = true;
+        for (Throwable failure: failures.values()) {
+            if (!first) {
+                addSuppressed(failure);
+            }
+            first = false;
+        }
+    }
+
+    /**
+     * Phase which failed, Start, Prepare, Commit or Rollback.
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    /**
+     * Names of the services which completed the phase.
+     */
+    public List<String> getCompletedServices() {
+        return completedServices;
+    }
+
+    /**
+     * Failures by the names of the services which did not complete the phase.
+     */
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+
+}
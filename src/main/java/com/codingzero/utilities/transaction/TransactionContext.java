@@ -2,10 +2,50 @@ package com.codingzero.utilities.transaction;
 
 public interface TransactionContext {
 
+    /**
+     * Name of the property marking the running transaction read-only.
+     */
+    String READ_ONLY = "TRANSACTION_READ_ONLY";
+
+    /**
+     * Name of the property holding the deadline of the running transaction, a <tt>System.nanoTime()</tt> value.
+     */
+    String DEADLINE = "TRANSACTION_DEADLINE";
+
     void setProperty(String name, Object property);
 
     Object getProperty(String name);
 
     Object removeProperty(String name);
 
+    /**
+     * Sets the property if there is none with the name yet and returns the existing one, otherwise null.
+     */
+    default Object setPropertyIfAbsent(String name, Object property) {
+        Object existing = getProperty(name);
+        if (null == existing) {
+            setProperty(name, property);
+        }
+        return existing;
+    }
+
+    default boolean isReadOnly() {
+        return Boolean.TRUE.equals(getProperty(READ_ONLY));
+    }
+
+    default boolean hasDeadline() {
+        return getProperty(DEADLINE) instanceof Long;
+    }
+
+    /**
+     * Returns the time left before the deadline, negative once it passed, <tt>Long.MAX_VALUE</tt> without a deadline.
+     */
+    default long getRemainingNanos() {
+        Object deadline = getProperty(DEADLINE);
+        if (!(deadline instanceof Long)) {
+            return Long.MAX_VALUE;
+        }
+        return (Long) deadline - System.nanoTime();
+    }
+
 }
@@ -1,5 +1,8 @@
 package com.codingzero.utilities.transaction;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 /**
  * An interface provides client to register/deregister <tt>TransactionalService</tt>s for a transaction.
  */
@@ -9,4 +12,85 @@ public interface TransactionManager extends Transaction {
 
     TransactionalService deregister(String name);
 
+    /**
+     * Returns true while the caller has a transaction of this manager which is not completed yet.
+     * Managers which cannot tell return true.
+     */
+    default boolean isTransactionActive() {
+        return true;
+    }
+
+    /**
+     * Runs the work in a new transaction and commits it, or rolls it back when the work or the commit fails.
+     * A commit which failed after the transaction ended is not followed by a rollback. A failure of the
+     * rollback is added as suppressed to the one which caused it.
+     */
+    default <T> T inTransaction(Supplier<T> work) {
+        start();
+        try {
+            T result = work.get();
+            commit();
+            return result;
+        } catch (RuntimeException | Error e) {
+            try {
+                if (isTransactionActive()) {
+                    rollback();
+                }
+            } catch (RuntimeException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Same as {@link #inTransaction(Supplier)} for work without a result.
+     */
+    default void run(Runnable work) {
+        start();
+        try {
+            work.run();
+            commit();
+        } catch (RuntimeException | Error e) {
+            try {
+                if (isTransactionActive()) {
+                    rollback();
+                }
+            } catch (RuntimeException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Commits the running transaction and returns a future which completes once every service finished.
+     * Managers which cannot complete a transaction on another thread commit on the caller.
+     */
+    default CompletableFuture<Void> commitAsync() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            commit();
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Rolls back the running transaction and returns a future which completes once every service finished.
+     * Managers which cannot complete a transaction on another thread roll back on the caller.
+     */
+    default CompletableFuture<Void> rollbackAsync() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            rollback();
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
 }
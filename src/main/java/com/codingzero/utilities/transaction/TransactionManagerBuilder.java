@@ -1,17 +1,148 @@
 package com.codingzero.utilities.transaction;
 
 import com.codingzero.utilities.transaction.manager.DefaultTransactionManagerBuilder;
+import com.codingzero.utilities.transaction.metrics.TransactionMetrics;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public abstract class TransactionManagerBuilder {
 
-    protected TransactionManagerBuilder() {
+    private boolean threadBound;
+    private boolean scoped;
+    private Executor parallelCommitExecutor;
+    private Executor concurrentStartExecutor;
+    private long concurrentStartTimeout;
+    private TimeUnit concurrentStartTimeUnit;
+    private Executor asyncExecutor;
+    private long defaultTimeout;
+    private TimeUnit defaultTimeUnit;
+    private TransactionMetrics metrics;
 
+    protected TransactionManagerBuilder() {
+        this.threadBound = false;
+        this.scoped = false;
+        this.parallelCommitExecutor = null;
+        this.concurrentStartExecutor = null;
+        this.concurrentStartTimeout = 0;
+        this.concurrentStartTimeUnit = TimeUnit.MILLISECONDS;
+        this.asyncExecutor = null;
+        this.defaultTimeout = 0;
+        this.defaultTimeUnit = TimeUnit.MILLISECONDS;
+        this.metrics = null;
     }
 
     public static TransactionManagerBuilder create() {
         return new DefaultTransactionManagerBuilder();
     }
 
+    /**
+     * Binds the running transaction to the calling thread, so that one manager can be used by every thread.
+     */
+    public TransactionManagerBuilder threadBound(boolean threadBound) {
+        this.threadBound = threadBound;
+        return this;
+    }
+
+    protected boolean isThreadBound() {
+        return threadBound;
+    }
+
+    /**
+     * Takes the running transaction from the enclosing <tt>TransactionScope</tt>, takes precedence over thread bound.
+     */
+    public TransactionManagerBuilder scoped(boolean scoped) {
+        this.scoped = scoped;
+        return this;
+    }
+
+    protected boolean isScoped() {
+        return scoped;
+    }
+
+    /**
+     * Calls onCommitTransaction() and onRollbackTransaction() of the services in parallel on the given executor,
+     * failures are reported together by a <tt>TransactionCompletionException</tt>. Null turns it off.
+     */
+    public TransactionManagerBuilder parallelCommit(Executor executor) {
+        this.parallelCommitExecutor = executor;
+        return this;
+    }
+
+    protected Executor getParallelCommitExecutor() {
+        return parallelCommitExecutor;
+    }
+
+    /**
+     * Calls onStartTransaction() of the services in parallel on the given executor, e.g. to acquire
+     * connections of different DataSources at the same time. If a service fails or does not start within
+     * the timeout, the services already started are rolled back and start() throws a
+     * <tt>TransactionCompletionException</tt>. Null turns it off.
+     */
+    public TransactionManagerBuilder concurrentStart(Executor executor, long timeout, TimeUnit unit) {
+        this.concurrentStartExecutor = executor;
+        this.concurrentStartTimeout = timeout;
+        this.concurrentStartTimeUnit = unit;
+        return this;
+    }
+
+    protected Executor getConcurrentStartExecutor() {
+        return concurrentStartExecutor;
+    }
+
+    protected long getConcurrentStartTimeout() {
+        return concurrentStartTimeout;
+    }
+
+    protected TimeUnit getConcurrentStartTimeUnit() {
+        return concurrentStartTimeUnit;
+    }
+
+    /**
+     * Runs commitAsync() and rollbackAsync() on the given executor, null uses a shared pool of
+     * daemon threads, one per processor, which runs tasks on the caller once its queue is full.
+     */
+    public TransactionManagerBuilder asyncExecutor(Executor executor) {
+        this.asyncExecutor = executor;
+        return this;
+    }
+
+    protected Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Gives transactions started without a timeout the given one, 0 leaves them without a deadline.
+     */
+    public TransactionManagerBuilder defaultTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Default timeout cannot be negative.");
+        }
+        this.defaultTimeout = timeout;
+        this.defaultTimeUnit = unit;
+        return this;
+    }
+
+    protected long getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    protected TimeUnit getDefaultTimeUnit() {
+        return defaultTimeUnit;
+    }
+
+    /**
+     * Times the phases of transactions and the callbacks of each service into the given metrics.
+     */
+    public TransactionManagerBuilder metrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    protected TransactionMetrics getMetrics() {
+        return metrics;
+    }
+
     abstract public TransactionManager build();
 
 }
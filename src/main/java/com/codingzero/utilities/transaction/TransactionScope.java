@@ -0,0 +1,105 @@
+package com.codingzero.utilities.transaction;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Binds a <tt>TransactionContext</tt> to the dynamic extent of a task, the same way a scoped value does:
+ * the binding is visible to everything the task calls and is gone once the task returns.
+ *
+ * A thread only holds a binding while it runs inside a scope, so idle threads, including virtual
+ * threads, carry no transaction state. Child tasks join the transaction of their parent by
+ * being wrapped with {@link #wrap(Runnable)} or {@link #wrap(Callable)}, which only captures the context.
+ *
+ * Managers whose transaction spans several calls on one thread use {@link #bind(TransactionContext)}
+ * and {@link #unbind()} instead.
+ */
+public final class TransactionScope {
+
+    private static final ThreadLocal<TransactionContext> CURRENT = new ThreadLocal<>();
+
+    private TransactionScope() {
+
+    }
+
+    /**
+     * Returns the context bound to the current scope, or null if the caller is not inside one.
+     */
+    public static TransactionContext current() {
+        return CURRENT.get();
+    }
+
+    public static void run(TransactionContext context, Runnable task) {
+        checkForNullContext(context);
+        TransactionContext previous = enter(context);
+        try {
+            task.run();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    public static <T> T call(TransactionContext context, Callable<T> task) throws Exception {
+        checkForNullContext(context);
+        TransactionContext previous = enter(context);
+        try {
+            return task.call();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    /**
+     * Binds the context to the calling thread until {@link #unbind()} is called.
+     */
+    public static void bind(TransactionContext context) {
+        checkForNullContext(context);
+        CURRENT.set(context);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns a task which runs the given one in the scope of the caller, or the task itself if there is no scope.
+     */
+    public static Runnable wrap(Runnable task) {
+        TransactionContext context = current();
+        if (null == context) {
+            return task;
+        }
+        return () -> run(context, task);
+    }
+
+    /**
+     * Returns a task which calls the given one in the scope of the caller, or the task itself if there is no scope.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        TransactionContext context = current();
+        if (null == context) {
+            return task;
+        }
+        return () -> call(context, task);
+    }
+
+    private static TransactionContext enter(TransactionContext context) {
+        TransactionContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return previous;
+    }
+
+    private static void exit(TransactionContext previous) {
+        if (null == previous) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    private static void checkForNullContext(TransactionContext context) {
+        if (null == context) {
+            throw new IllegalArgumentException("TransactionContext cannot be null value.");
+        }
+    }
+
+}
@@ -14,4 +14,12 @@ public interface TransactionalService {
 
     void onRollbackTransaction(TransactionContext context);
 
+    /**
+     * Returns true if the service keeps the state of a transaction in its context only, so that the
+     * transaction can complete on another thread while the caller starts the next one.
+     */
+    default boolean keepsStateInContext() {
+        return false;
+    }
+
 }
@@ -0,0 +1,55 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+/**
+ * A connection held longer than the leak threshold.
+ */
+public class ConnectionLeak {
+
+    private long acquiredAt;
+    private long heldMillis;
+    private String threadName;
+    private Throwable acquisitionStack;
+
+    public ConnectionLeak(long acquiredAt, long heldMillis, String threadName, Throwable acquisitionStack) {
+        this.acquiredAt = acquiredAt;
+        this.heldMillis = heldMillis;
+        this.threadName = threadName;
+        this.acquisitionStack = acquisitionStack;
+    }
+
+    /**
+     * Wall clock time of the acquisition, in milliseconds.
+     */
+    public long getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public long getHeldMillis() {
+        return heldMillis;
+    }
+
+    /**
+     * Name of the thread which acquired the connection.
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Returns the stack of the acquisition, or null if it was not sampled.
+     */
+    public Throwable getAcquisitionStack() {
+        return acquisitionStack;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionLeak{"
+                + "acquiredAt=" + acquiredAt
+                + ", heldMillis=" + heldMillis
+                + ", threadName='" + threadName + '\''
+                + ", stackSampled=" + (null != acquisitionStack)
+                + '}';
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the connections handed out and not closed yet, and reports the ones held past the threshold.
+ *
+ * The acquisition stack is captured only for the sampled share of the connections, since filling in a
+ * stack trace costs far more than the rest of the bookkeeping. The scan runs on the watchdog thread
+ * while connections are outstanding, and stops when there are none.
+ */
+class ConnectionLeakDetector {
+
+    private static final long MIN_SCAN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private long thresholdNanos;
+    private double stackSampleRate;
+    private ConnectionLeakListener listener;
+    private Set<TrackedConnection> outstanding;
+    private AtomicBoolean scanning;
+
+    ConnectionLeakDetector(long thresholdNanos, double stackSampleRate, ConnectionLeakListener listener) {
+        this.thresholdNanos = thresholdNanos;
+        this.stackSampleRate = stackSampleRate;
+        this.listener = listener;
+        this.outstanding = ConcurrentHashMap.newKeySet();
+        this.scanning = new AtomicBoolean(false);
+    }
+
+    Connection track(Connection connection) {
+        Throwable stack = null;
+        if (stackSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < stackSampleRate) {
+            stack = new Throwable("Connection acquired here");
+        }
+        TrackedConnection tracked = new TrackedConnection(connection, stack);
+        outstanding.add(tracked);
+        if (scanning.compareAndSet(false, true)) {
+            scheduleScan();
+        }
+        return tracked;
+    }
+
+    int getOutstandingCount() {
+        return outstanding.size();
+    }
+
+    private void scheduleScan() {
+        TransactionWatchdog.schedule(this::scan, Math.max(MIN_SCAN_INTERVAL_NANOS, thresholdNanos / 2));
+    }
+
+    private void scan() {
+        long now = System.nanoTime();
+        for (TrackedConnection connection: outstanding) {
+            long held = now - connection.acquiredNanos;
+            if (held >= thresholdNanos && !connection.reported) {
+                connection.reported = true;
+                report(connection, held);
+            }
+        }
+        if (!outstanding.isEmpty()) {
+            scheduleScan();
+            return;
+        }
+        scanning.set(false);
+        if (!outstanding.isEmpty() && scanning.compareAndSet(false, true)) {
+            scheduleScan();
+        }
+    }
+
+    private void report(TrackedConnection connection, long heldNanos) {
+        try {
+            listener.onLeak(new ConnectionLeak(connection.acquiredAt,
+                    TimeUnit.NANOSECONDS.toMillis(heldNanos), connection.threadName, connection.stack));
+        } catch (RuntimeException e) {
+            //nothing, a failing listener must not stop the scan
+        }
+    }
+
+    /**
+     * Stops being tracked when closed, also when the close fails.
+     */
+    private class TrackedConnection extends DelegatingConnection {
+
+        private Connection connection;
+        private long acquiredNanos;
+        private long acquiredAt;
+        private String threadName;
+        private Throwable stack;
+        private volatile boolean reported;
+
+        TrackedConnection(Connection connection, Throwable stack) {
+            this.connection = connection;
+            this.acquiredNanos = System.nanoTime();
+            this.acquiredAt = System.currentTimeMillis();
+            this.threadName = Thread.currentThread().getName();
+            this.stack = stack;
+            this.reported = false;
+        }
+
+        @Override
+        protected Connection getDelegate() {
+            return connection;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            outstanding.remove(this);
+            connection.close();
+        }
+
+    }
+
+}
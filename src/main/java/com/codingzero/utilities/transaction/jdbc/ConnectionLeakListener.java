@@ -0,0 +1,11 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+/**
+ * Gets the connections held longer than the leak threshold, each one once. Called on the watchdog
+ * thread, it should return quickly.
+ */
+public interface ConnectionLeakListener {
+
+    void onLeak(ConnectionLeak leak);
+
+}
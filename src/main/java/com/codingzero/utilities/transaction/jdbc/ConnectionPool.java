@@ -0,0 +1,284 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A bounded pool of physical connections of one <tt>DataSource</tt>.
+ *
+ * Idle connections are kept in a lock-free deque, the most recently returned one is borrowed first so that
+ * rarely used connections age out. The bound is a semaphore, which takes a permit with a single CAS when
+ * connections are available and queues callers in arrival order when the pool is fair.
+ *
+ * Closing a borrowed connection closes the statements it created and returns it to the pool, with the session
+ * state the physical connection was created with. Idle connections are closed once they exceed the idle time,
+ * when the pool meets them or on {@link #evictIdleConnections()}, which the pool runs at the eviction interval
+ * on the <tt>TransactionWatchdog</tt> until it is closed.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private DataSource dataSource;
+    private ConnectionPoolOptions options;
+    private ConcurrentLinkedDeque<PooledEntry> idleConnections;
+    private Semaphore permits;
+    private AtomicBoolean closed;
+    private ScheduledFuture<?> eviction;
+
+    public ConnectionPool(DataSource dataSource, ConnectionPoolOptions options) {
+        this.dataSource = dataSource;
+        this.options = options.copy();
+        this.idleConnections = new ConcurrentLinkedDeque<>();
+        this.permits = new Semaphore(this.options.getMaxSize(), this.options.isFair());
+        this.closed = new AtomicBoolean(false);
+        this.eviction = scheduleEviction();
+    }
+
+    private ScheduledFuture<?> scheduleEviction() {
+        long interval = options.getEvictionIntervalMillis();
+        if (interval <= 0) {
+            return null;
+        }
+        return TransactionWatchdog.scheduleAtFixedRate(
+                this::evictIdleConnections, TimeUnit.MILLISECONDS.toNanos(interval));
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    public int getBorrowedCount() {
+        return options.getMaxSize() - permits.availablePermits();
+    }
+
+    public Connection borrow() throws SQLException {
+        checkForClosed();
+        acquirePermit();
+        try {
+            return new PooledConnection(this, takeConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!permits.tryAcquire(options.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out waiting for a connection, all "
+                        + options.getMaxSize() + " connections are in use.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a connection.", e);
+        }
+    }
+
+    private PooledEntry takeConnection() throws SQLException {
+        long now = System.currentTimeMillis();
+        PooledEntry entry;
+        while (null != (entry = idleConnections.pollFirst())) {
+            if (isExpired(entry, now)) {
+                closeQuietly(entry);
+            } else if (isValid(entry, now)) {
+                return entry;
+            }
+        }
+        Connection connection = dataSource.getConnection();
+        if (options.isTrackSessionState()) {
+            connection = new SessionStateConnection(connection);
+        }
+        try {
+            PooledEntry created = new PooledEntry(connection, now);
+            created.captureSessionState();
+            return created;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.close();
+            } catch (SQLException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    private boolean isExpired(PooledEntry entry, long now) {
+        return now - entry.getLastUsed() > options.getMaxIdleMillis();
+    }
+
+    private boolean isValid(PooledEntry entry, long now) {
+        if (now - entry.getLastValidated() <= options.getValidationWindowMillis()) {
+            return true;
+        }
+        try {
+            if (entry.getConnection().isValid(options.getValidationTimeoutSeconds())) {
+                entry.setLastValidated(now);
+                return true;
+            }
+        } catch (SQLException e) {
+            //fall through, the connection is broken
+        }
+        closeQuietly(entry);
+        return false;
+    }
+
+    /**
+     * Takes a connection back, a connection left in a transaction is rolled back first. The session state
+     * it was created with is restored, the read-only, isolation, catalog and schema state only if the
+     * borrower changed some of it.
+     */
+    void giveBack(PooledEntry entry, boolean sessionChanged) {
+        try {
+            if (closed.get() || entry.getConnection().isClosed()) {
+                closeQuietly(entry);
+                return;
+            }
+            Connection connection = entry.getConnection();
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            if (connection.getAutoCommit() != entry.isAutoCommit()) {
+                connection.setAutoCommit(entry.isAutoCommit());
+            }
+            if (sessionChanged) {
+                entry.restoreSessionState();
+            }
+            long now = System.currentTimeMillis();
+            entry.setLastUsed(now);
+            idleConnections.offerFirst(entry);
+            evictOldest(now);
+        } catch (SQLException e) {
+            closeQuietly(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictOldest(long now) {
+        PooledEntry oldest = idleConnections.peekLast();
+        if (null != oldest && isExpired(oldest, now) && idleConnections.removeLastOccurrence(oldest)) {
+            closeQuietly(oldest);
+        }
+    }
+
+    /**
+     * Closes every idle connection which exceeds the idle time.
+     */
+    public void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (PooledEntry entry: idleConnections) {
+            if (isExpired(entry, now) && idleConnections.removeFirstOccurrence(entry)) {
+                closeQuietly(entry);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (null != eviction) {
+            eviction.cancel(false);
+        }
+        PooledEntry entry;
+        while (null != (entry = idleConnections.pollFirst())) {
+            closeQuietly(entry);
+        }
+    }
+
+    private void closeQuietly(PooledEntry entry) {
+        try {
+            entry.getConnection().close();
+        } catch (SQLException e) {
+            //nothing, the connection is discarded anyway
+        }
+    }
+
+    private void checkForClosed() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed.");
+        }
+    }
+
+    static class PooledEntry {
+
+        private Connection connection;
+        private long lastUsed;
+        private long lastValidated;
+        private boolean autoCommit;
+        private boolean readOnly;
+        private int isolation;
+        private String catalog;
+        private String schema;
+
+        public PooledEntry(Connection connection, long now) {
+            this.connection = connection;
+            this.lastUsed = now;
+            this.lastValidated = now;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        public long getLastUsed() {
+            return lastUsed;
+        }
+
+        public void setLastUsed(long lastUsed) {
+            this.lastUsed = lastUsed;
+        }
+
+        public long getLastValidated() {
+            return Math.max(lastValidated, lastUsed);
+        }
+
+        public void setLastValidated(long lastValidated) {
+            this.lastValidated = lastValidated;
+        }
+
+        public boolean isAutoCommit() {
+            return autoCommit;
+        }
+
+        void captureSessionState() throws SQLException {
+            autoCommit = connection.getAutoCommit();
+            readOnly = connection.isReadOnly();
+            isolation = connection.getTransactionIsolation();
+            catalog = connection.getCatalog();
+            try {
+                schema = connection.getSchema();
+            } catch (SQLException | AbstractMethodError e) {
+                schema = null; //the driver has no schemas, they are not restored
+            }
+        }
+
+        void restoreSessionState() throws SQLException {
+            if (connection.isReadOnly() != readOnly) {
+                connection.setReadOnly(readOnly);
+            }
+            if (connection.getTransactionIsolation() != isolation) {
+                connection.setTransactionIsolation(isolation);
+            }
+            if (null != catalog && !catalog.equals(connection.getCatalog())) {
+                connection.setCatalog(catalog);
+            }
+            if (null != schema && !schema.equals(connection.getSchema())) {
+                connection.setSchema(schema);
+            }
+        }
+
+    }
+
+}
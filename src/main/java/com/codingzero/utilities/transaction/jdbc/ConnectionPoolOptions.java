@@ -0,0 +1,143 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options of a <tt>ConnectionPool</tt>, read once when the pool is constructed.
+ */
+public class ConnectionPoolOptions {
+
+    private int maxSize;
+    private long borrowTimeoutMillis;
+    private long maxIdleMillis;
+    private long evictionIntervalMillis;
+    private long validationWindowMillis;
+    private int validationTimeoutSeconds;
+    private boolean fair;
+    private boolean trackSessionState;
+
+    protected ConnectionPoolOptions() {
+        this.maxSize = 10;
+        this.borrowTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+        this.maxIdleMillis = TimeUnit.MINUTES.toMillis(10);
+        this.evictionIntervalMillis = TimeUnit.SECONDS.toMillis(30);
+        this.validationWindowMillis = TimeUnit.SECONDS.toMillis(30);
+        this.validationTimeoutSeconds = 5;
+        this.fair = true;
+        this.trackSessionState = false;
+    }
+
+    public static ConnectionPoolOptions create() {
+        return new ConnectionPoolOptions();
+    }
+
+    /**
+     * Maximum number of connections borrowed and idle together.
+     */
+    public ConnectionPoolOptions maxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size need to be greater than 0.");
+        }
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * How long borrowing waits for a connection when all of them are in use.
+     */
+    public ConnectionPoolOptions borrowTimeout(long timeout, TimeUnit unit) {
+        this.borrowTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    /**
+     * How long a connection can stay idle before the pool closes it.
+     */
+    public ConnectionPoolOptions maxIdle(long time, TimeUnit unit) {
+        this.maxIdleMillis = unit.toMillis(time);
+        return this;
+    }
+
+    public long getMaxIdleMillis() {
+        return maxIdleMillis;
+    }
+
+    /**
+     * How often the pool closes the idle connections which exceed the idle time, zero or less turns it off.
+     */
+    public ConnectionPoolOptions evictionInterval(long time, TimeUnit unit) {
+        this.evictionIntervalMillis = unit.toMillis(time);
+        return this;
+    }
+
+    public long getEvictionIntervalMillis() {
+        return evictionIntervalMillis;
+    }
+
+    /**
+     * A connection is validated when it is borrowed if it has not been validated or used within this window.
+     */
+    public ConnectionPoolOptions validationWindow(long time, TimeUnit unit) {
+        this.validationWindowMillis = unit.toMillis(time);
+        return this;
+    }
+
+    public long getValidationWindowMillis() {
+        return validationWindowMillis;
+    }
+
+    public ConnectionPoolOptions validationTimeout(int seconds) {
+        this.validationTimeoutSeconds = seconds;
+        return this;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    /**
+     * Fair pools hand connections to waiting callers in arrival order.
+     */
+    public ConnectionPoolOptions fair(boolean fair) {
+        this.fair = fair;
+        return this;
+    }
+
+    public boolean isFair() {
+        return fair;
+    }
+
+    /**
+     * Wraps each physical connection in a <tt>SessionStateConnection</tt> for as long as it is pooled.
+     */
+    public ConnectionPoolOptions trackSessionState(boolean trackSessionState) {
+        this.trackSessionState = trackSessionState;
+        return this;
+    }
+
+    public boolean isTrackSessionState() {
+        return trackSessionState;
+    }
+
+    ConnectionPoolOptions copy() {
+        ConnectionPoolOptions copy = new ConnectionPoolOptions();
+        copy.maxSize = maxSize;
+        copy.borrowTimeoutMillis = borrowTimeoutMillis;
+        copy.maxIdleMillis = maxIdleMillis;
+        copy.evictionIntervalMillis = evictionIntervalMillis;
+        copy.validationWindowMillis = validationWindowMillis;
+        copy.validationTimeoutSeconds = validationTimeoutSeconds;
+        copy.fair = fair;
+        copy.trackSessionState = trackSessionState;
+        return copy;
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A connection of a transaction with a deadline, gives every statement the time left as its query timeout
+ * and refuses new statements once the deadline passed. Its statements can be cancelled and closed from
+ * another thread.
+ *
+ * Statements are wrapped, once the deadline passed they refuse to run, so a caller still holding one cannot
+ * run it on a connection which went back to the pool. They are tracked weakly, the ones closed and dropped by
+ * the caller do not pile up.
+ */
+class DeadlineConnection extends DelegatingConnection {
+
+    private Connection connection;
+    private volatile long deadline;
+    private final Set<Statement> statements;
+    private final Map<Statement, Statement> originals; //wrapped statements to the ones they wrap
+    private final ListeningStatements.ExecutionListener deadlineCheck;
+
+    DeadlineConnection(Connection connection, long deadline) {
+        this.connection = connection;
+        this.deadline = deadline;
+        this.statements = Collections.newSetFromMap(new WeakHashMap<>());
+        this.originals = new WeakHashMap<>();
+        this.deadlineCheck = sql -> checkForDeadlinePassed();
+    }
+
+    @Override
+    protected Connection getDelegate() {
+        return connection;
+    }
+
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the statements of the connection which are still open, failures are ignored.
+     */
+    void cancelStatements() {
+        for (Statement statement: openStatements()) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                //nothing, the connection is closed next
+            }
+        }
+    }
+
+    /**
+     * Closes the statements of the connection which are still open, failures are ignored.
+     */
+    void closeStatements() {
+        for (Statement statement: openStatements()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                //nothing, the connection is closed next
+            }
+        }
+    }
+
+    private List<Statement> openStatements() {
+        List<Statement> open;
+        synchronized (statements) {
+            open = new ArrayList<>(statements);
+        }
+        open.removeIf(statement -> {
+            try {
+                return statement.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        });
+        return open;
+    }
+
+    /**
+     * Returns the statement a statement of this connection wraps, or the given one if it is not from here.
+     */
+    PreparedStatement original(PreparedStatement statement) {
+        Statement original;
+        synchronized (statements) {
+            original = originals.get(statement);
+        }
+        return original instanceof PreparedStatement ? (PreparedStatement) original : statement;
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareStatement(sql), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareStatement(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql,
+                                              int resultSetType,
+                                              int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareStatement(sql, autoGeneratedKeys), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareStatement(sql, columnIndexes), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareStatement(sql, columnNames), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareCall(sql), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareCall(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql,
+                                         int resultSetType,
+                                         int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        checkForDeadlinePassed();
+        return track(connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    private Statement track(Statement statement) throws SQLException {
+        return track(statement, ListeningStatements.wrap(this, setQueryTimeout(statement), deadlineCheck));
+    }
+
+    private PreparedStatement track(PreparedStatement statement, String sql) throws SQLException {
+        return track(statement, ListeningStatements.wrap(this, setQueryTimeout(statement), sql, deadlineCheck));
+    }
+
+    private CallableStatement track(CallableStatement statement, String sql) throws SQLException {
+        return track(statement, ListeningStatements.wrap(this, setQueryTimeout(statement), sql, deadlineCheck));
+    }
+
+    private <T extends Statement> T track(Statement statement, T wrapped) {
+        synchronized (statements) {
+            statements.add(statement);
+            originals.put(wrapped, statement);
+        }
+        return wrapped;
+    }
+
+    /**
+     * Query timeouts are whole seconds, the time left is rounded up so a statement never times out early.
+     */
+    private <T extends Statement> T setQueryTimeout(T statement) throws SQLException {
+        long remaining = deadline - System.nanoTime();
+        statement.setQueryTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        return statement;
+    }
+
+    private void checkForDeadlinePassed() throws SQLTimeoutException {
+        if (deadline - System.nanoTime() <= 0) {
+            throw new SQLTimeoutException("Transaction deadline passed.");
+        }
+    }
+
+}
@@ -1,33 +1,54 @@
 package com.codingzero.utilities.transaction.jdbc;
 
+import com.codingzero.utilities.transaction.PreparableTransactionalService;
 import com.codingzero.utilities.transaction.Transaction;
 import com.codingzero.utilities.transaction.TransactionContext;
-import com.codingzero.utilities.transaction.TransactionalService;
+import com.codingzero.utilities.transaction.TransactionScope;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-public abstract class JDBCTransactionalService implements TransactionalService, Transaction {
+public abstract class JDBCTransactionalService implements PreparableTransactionalService, Transaction {
 
-    private static final String TRANSACTION_HELPER = "TRANSACTION_HELPER_" + new Object().hashCode();
+    private static final String TRANSACTION_HELPERS = "TRANSACTION_HELPERS_" + new Object().hashCode();
+    private static final AtomicLong NEXT_SERVICE_ID = new AtomicLong();
 
     private DataSource dataSource;
     private TransactionHelperProvider helperProvider;
-    private TransactionHelper localTransactionHelper; //instance wide
-    private TransactionHelper globalTransactionHelper;
-    private TransactionCount serviceTransactionCount; //class wide
+    private JDBCTransactionalServiceOptions options;
+    private ServiceTransactionState instanceState; //instance wide
+    private ThreadLocal<ServiceTransactionState> threadState; //thread wide, shared mode out of a scope
+    private String stateKey;
+    private Object helperKey;
 
     public JDBCTransactionalService(DataSource dataSource) {
         this(dataSource, new TransactionHelperProvider());
     }
 
     public JDBCTransactionalService(DataSource dataSource, TransactionHelperProvider helperProvider) {
+        this(dataSource, helperProvider, JDBCTransactionalServiceOptions.create());
+    }
+
+    public JDBCTransactionalService(DataSource dataSource,
+                                    TransactionHelperProvider helperProvider,
+                                    JDBCTransactionalServiceOptions options) {
         this.dataSource = dataSource;
         this.helperProvider = helperProvider;
-        this.localTransactionHelper = null;
+        this.options = options.copy();
+        if (this.options.isShared()) {
+            this.instanceState = null;
+            this.threadState = new ThreadLocal<>();
+        } else {
+            this.instanceState = new ServiceTransactionState();
+            this.threadState = null;
+        }
+        this.stateKey = "SERVICE_STATE_" + NEXT_SERVICE_ID.incrementAndGet();
+        this.helperKey = TransactionHelperRegistry.keyOf(dataSource, this.options.getDatabaseGroup());
     }
 
     public DataSource getDataSource() {
@@ -38,70 +59,230 @@ public abstract class JDBCTransactionalService implements TransactionalService,
         return helperProvider;
     }
 
+    public boolean isShared() {
+        return options.isShared();
+    }
+
+    public boolean isLazy() {
+        return options.isLazy();
+    }
+
+    /**
+     * A shared service keeps its state in the context of the enclosing <tt>TransactionScope</tt>.
+     */
+    @Override
+    public boolean keepsStateInContext() {
+        return isShared();
+    }
+
+    /**
+     * Returns the transaction state of the caller, or null if a shared service has none for it yet.
+     *
+     * Inside a <tt>TransactionScope</tt> a shared service keeps its state in the scope's context,
+     * otherwise in a thread local.
+     */
+    private ServiceTransactionState peekState() {
+        if (!isShared()) {
+            return instanceState;
+        }
+        TransactionContext scope = TransactionScope.current();
+        if (null != scope) {
+            return (ServiceTransactionState) scope.getProperty(stateKey);
+        }
+        return threadState.get();
+    }
+
+    private ServiceTransactionState getState() {
+        ServiceTransactionState state = peekState();
+        if (null == state) {
+            state = new ServiceTransactionState();
+            TransactionContext scope = TransactionScope.current();
+            if (null != scope) {
+                scope.setProperty(stateKey, state);
+            } else {
+                threadState.set(state);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Transaction callbacks resolve the state through the context they get, so that they are
+     * not tied to the thread which started the transaction.
+     */
+    private ServiceTransactionState getState(TransactionContext context) {
+        if (!isShared()) {
+            return instanceState;
+        }
+        ServiceTransactionState state = (ServiceTransactionState) context.getProperty(stateKey);
+        if (null == state) {
+            state = peekState();
+        }
+        return state;
+    }
+
+    private void releaseState(ServiceTransactionState state) {
+        if (!isShared() || !state.isIdle()) {
+            return;
+        }
+        TransactionContext scope = TransactionScope.current();
+        if (null != scope) {
+            if (scope.getProperty(stateKey) == state) {
+                scope.removeProperty(stateKey);
+            }
+        } else if (threadState.get() == state) {
+            threadState.remove();
+        }
+    }
+
     private boolean isGlobalTransactionStarted() {
-        if (null == getGlobalTransactionHelper()) {
+        return isGlobalTransactionStarted(peekState());
+    }
+
+    private boolean isGlobalTransactionStarted(ServiceTransactionState state) {
+        if (null == state || null == state.getGlobalTransactionHelper()) {
             return false;
         }
-        return globalTransactionHelper.isTransactionStarted();
+        return state.getGlobalTransactionHelper().isTransactionStarted();
     }
 
-    private void markGlobalTransactionStarted(TransactionContext context) {
-        if (isGlobalTransactionStarted()) {
+    private void markGlobalTransactionStarted(ServiceTransactionState state, TransactionContext context) {
+        if (isGlobalTransactionStarted(state)) {
             throw new IllegalStateException("Global transaction already started");
         }
-        globalTransactionHelper =
-                (TransactionHelper) context.getProperty(TRANSACTION_HELPER);
+        TransactionHelperRegistry helpers = getTransactionHelpers(context);
+        TransactionHelper globalTransactionHelper = helpers.get(helperKey);
         if (null == globalTransactionHelper) {
-            globalTransactionHelper = getHelperProvider().get(getDataSource());
-            context.setProperty(TRANSACTION_HELPER, globalTransactionHelper);
+            globalTransactionHelper = newGlobalTransactionHelper();
+            TransactionHelper existingHelper = helpers.putIfAbsent(helperKey, globalTransactionHelper);
+            if (null != existingHelper) {
+                globalTransactionHelper.release();
+                globalTransactionHelper = existingHelper;
+            }
+        }
+        state.setGlobalTransactionHelper(globalTransactionHelper);
+        if (isShared()) {
+            state.setServiceTransactionCount(getServiceTransactionCount(context));
+            context.setProperty(stateKey, state);
+        }
+    }
+
+    private void cleanGlobalTransactionStartedMark(ServiceTransactionState state, TransactionContext context) {
+        if (state.getNestedGlobalStarts() > 0) {
+            state.setNestedGlobalStarts(0);
+            state.setLocalTransactionHelper(null);
+        }
+        state.setGlobalTransactionHelper(null);
+        if (isShared()) {
+            state.setServiceTransactionCount(null);
+            if (state.isIdle()) {
+                context.removeProperty(stateKey);
+            }
+            releaseState(state);
+        }
+    }
+
+    private TransactionHelper newGlobalTransactionHelper() {
+        if (isLazy()) {
+            return getHelperProvider().getLazy(getDataSource());
         }
+        return getHelperProvider().get(getDataSource());
     }
 
-    private void cleanGlobalTransactionStartedMark() {
-        globalTransactionHelper = null;
+    private TransactionHelperRegistry getTransactionHelpers(TransactionContext context) {
+        TransactionHelperRegistry helpers = (TransactionHelperRegistry) context.getProperty(TRANSACTION_HELPERS);
+        if (null == helpers) {
+            helpers = new TransactionHelperRegistry();
+            TransactionHelperRegistry existingHelpers =
+                    (TransactionHelperRegistry) context.setPropertyIfAbsent(TRANSACTION_HELPERS, helpers);
+            if (null != existingHelpers) {
+                helpers = existingHelpers;
+            }
+        }
+        return helpers;
     }
 
-    private void cleanGlobalTransactionHelper(TransactionContext context) {
-        context.removeProperty(TRANSACTION_HELPER);
+    private void cleanGlobalTransactionHelper(ServiceTransactionState state, TransactionContext context) {
+        TransactionHelperRegistry helpers = (TransactionHelperRegistry) context.getProperty(TRANSACTION_HELPERS);
+        if (null != helpers) {
+            helpers.remove(helperKey, state.getGlobalTransactionHelper());
+        }
     }
 
     private TransactionHelper getGlobalTransactionHelper() {
-        return globalTransactionHelper;
+        return peekState().getGlobalTransactionHelper();
     }
 
     private boolean isLocalTransactionStarted() {
-        return null != localTransactionHelper;
+        ServiceTransactionState state = peekState();
+        return null != state && null != state.getLocalTransactionHelper();
     }
 
     private void markLocalTransactionStarted() {
         if (isLocalTransactionStarted()) {
             return;
         }
-        localTransactionHelper = getHelperProvider().get(getDataSource());
+        getState().setLocalTransactionHelper(getHelperProvider().get(getDataSource()));
     }
 
     private void cleanLocalTransactionStartedMark() {
-        localTransactionHelper = null;
+        ServiceTransactionState state = peekState();
+        state.setLocalTransactionHelper(null);
+        releaseState(state);
     }
 
     private TransactionHelper getLocalTransactionHelper() {
-        return localTransactionHelper;
+        return peekState().getLocalTransactionHelper();
     }
 
-    protected Connection getConnection() {
+    private TransactionHelper getTransactionHelper() {
         if (isGlobalTransactionStarted()) {
-            return getGlobalTransactionHelper().getConnection();
+            return getGlobalTransactionHelper();
         } else if (isLocalTransactionStarted()) {
-            return getLocalTransactionHelper().getConnection();
+            return getLocalTransactionHelper();
+        }
+        return null;
+    }
+
+    protected Connection getConnection() {
+        TransactionHelper helper = getTransactionHelper();
+        if (null != helper) {
+            return helper.getConnection();
         }
         return getNoneTransactionConnection();
     }
 
     private Connection getNoneTransactionConnection() {
+        return getHelperProvider().getConnection(getDataSource());
+    }
+
+    /**
+     * Queues a parameterized write in the running transaction. Queued writes run in order, consecutive ones
+     * of the same SQL as one JDBC batch, when the batch size is reached, before the next getConnection() and
+     * before the commit. They are not visible to reads on other connections until then, and a failed batch
+     * rolls back the transaction.
+     *
+     * Out of a transaction the write runs right away.
+     */
+    protected void batchUpdate(String sql, Object... parameters) {
+        TransactionHelper helper = getTransactionHelper();
+        if (null != helper) {
+            helper.addBatch(sql, parameters, options.getBatchSize());
+            return;
+        }
+        Connection conn = getNoneTransactionConnection();
+        PreparedStatement stmt = null;
         try {
-            return getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i ++) {
+                stmt.setObject(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            closePreparedStatement(stmt);
+            closeConnection(conn);
         }
     }
 
@@ -115,9 +296,16 @@ public abstract class JDBCTransactionalService implements TransactionalService,
         }
     }
 
+    /**
+     * Inside a transaction the statement goes back to the statement cache of the helper, if it has one.
+     */
     protected void closePreparedStatement(PreparedStatement stmt) {
         try {
-            if (null != stmt) {
+            if (null == stmt) {
+                return;
+            }
+            TransactionHelper helper = getTransactionHelper();
+            if (null == helper || !helper.releaseStatement(stmt)) {
                 stmt.close();
             }
         } catch (SQLException e) {
@@ -137,11 +325,74 @@ public abstract class JDBCTransactionalService implements TransactionalService,
         }
     }
 
+    /**
+     * In nested mode a start inside a global transaction sets a savepoint on the connection of the
+     * global transaction, its rollback undoes only the work done since.
+     */
     @Override
     public void start() {
+        if (options.isNested() && isGlobalTransactionStarted()) {
+            startNestedGlobalTransaction();
+            return;
+        }
         markLocalTransactionStarted();
-        getLocalTransactionHelper().startTransaction();
+        if (options.isNested()) {
+            getLocalTransactionHelper().startNestedTransaction();
+        } else {
+            getLocalTransactionHelper().startTransaction();
+        }
         startServiceTransaction();
+        setDefaultDeadline(getLocalTransactionHelper());
+    }
+
+    /**
+     * Starts a local transaction which is rolled back once the timeout passed, see <tt>TransactionHelper</tt>.
+     */
+    @Override
+    public void start(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout need to be greater than 0.");
+        }
+        start();
+        getLocalTransactionHelper().setDeadline(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    private void startNestedGlobalTransaction() {
+        ServiceTransactionState state = peekState();
+        TransactionHelper helper = state.getGlobalTransactionHelper();
+        helper.startNestedTransaction();
+        state.setLocalTransactionHelper(helper);
+        state.setNestedGlobalStarts(state.getNestedGlobalStarts() + 1);
+        startServiceTransaction();
+    }
+
+    /**
+     * Returns true once every nested start on the global transaction is committed or rolled back.
+     */
+    private boolean endNestedGlobalTransaction() {
+        ServiceTransactionState state = peekState();
+        if (state.getNestedGlobalStarts() == 0) {
+            return false;
+        }
+        state.setNestedGlobalStarts(state.getNestedGlobalStarts() - 1);
+        return state.getNestedGlobalStarts() == 0;
+    }
+
+    private void setDefaultDeadline(TransactionHelper helper) {
+        if (options.getDefaultTimeoutNanos() > 0) {
+            helper.setDeadline(System.nanoTime() + options.getDefaultTimeoutNanos());
+        }
+    }
+
+    /**
+     * Starts a local transaction on a read-only connection, see <tt>TransactionHelper</tt>.
+     */
+    @Override
+    public void startReadOnly() {
+        markLocalTransactionStarted();
+        getLocalTransactionHelper().startReadOnlyTransaction();
+        startServiceTransaction();
+        setDefaultDeadline(getLocalTransactionHelper());
     }
 
     private void startServiceTransaction() {
@@ -155,7 +406,8 @@ public abstract class JDBCTransactionalService implements TransactionalService,
         checkForLocalTransactionNotStarted();
         getLocalTransactionHelper().commit();
         commitServiceTransaction();
-        if (!getLocalTransactionHelper().isTransactionStarted()) {
+        if (endNestedGlobalTransaction()
+                || !getLocalTransactionHelper().isTransactionStarted()) {
             cleanLocalTransactionStartedMark();
         }
     }
@@ -171,7 +423,8 @@ public abstract class JDBCTransactionalService implements TransactionalService,
         checkForLocalTransactionNotStarted();
         getLocalTransactionHelper().rollback();
         rollbackServiceTransaction();
-        if (!getLocalTransactionHelper().isTransactionStarted()) {
+        if (endNestedGlobalTransaction()
+                || !getLocalTransactionHelper().isTransactionStarted()) {
             cleanLocalTransactionStartedMark();
         }
     }
@@ -182,43 +435,104 @@ public abstract class JDBCTransactionalService implements TransactionalService,
         }
     }
 
+    /**
+     * A shared service picks up the class wide transaction count when a global transaction starts,
+     * since the registration context can be used by many threads.
+     */
     @Override
     public void onRegister(String name, TransactionContext context) {
         checkForNullContext(context);
-        setServiceTransactionCountProperty(context);
+        if (!isShared()) {
+            instanceState.setServiceTransactionCount(getServiceTransactionCount(context));
+        }
     }
 
-    private void setServiceTransactionCountProperty(TransactionContext context) {
+    private TransactionCount getServiceTransactionCount(TransactionContext context) {
         String propertyKey = getClass().getCanonicalName();
-        serviceTransactionCount = (TransactionCount) context.getProperty(propertyKey);
+        TransactionCount serviceTransactionCount = (TransactionCount) context.getProperty(propertyKey);
         if (null == serviceTransactionCount) {
             serviceTransactionCount = new TransactionCount();
-            context.setProperty(propertyKey, serviceTransactionCount);
+            TransactionCount existingCount =
+                    (TransactionCount) context.setPropertyIfAbsent(propertyKey, serviceTransactionCount);
+            if (null != existingCount) {
+                serviceTransactionCount = existingCount;
+            }
         }
+        return serviceTransactionCount;
     }
 
     private TransactionCount getServiceTransactionCount() {
-        return serviceTransactionCount;
+        ServiceTransactionState state = peekState();
+        if (null == state) {
+            return null;
+        }
+        return state.getServiceTransactionCount();
     }
 
     @Override
     public void onStartTransaction(TransactionContext context) {
         checkForNullContext(context);
         checkForLocalTransactionStarted();
-        markGlobalTransactionStarted(context);
-        getGlobalTransactionHelper().startTransaction();
+        ServiceTransactionState state = getState();
+        markGlobalTransactionStarted(state, context);
+        if (context.isReadOnly()) {
+            state.getGlobalTransactionHelper().startReadOnlyTransaction();
+        } else {
+            state.getGlobalTransactionHelper().startTransaction();
+        }
+        if (context.hasDeadline()) {
+            state.getGlobalTransactionHelper().setDeadline(System.nanoTime() + context.getRemainingNanos());
+        } else {
+            setDefaultDeadline(state.getGlobalTransactionHelper());
+        }
+    }
+
+    /**
+     * Checks the connection of the global transaction is still usable, then lets the subclass
+     * validate or flush its pending work through {@link #prepareTransaction(Connection)}.
+     * A lazy transaction which never got its connection has nothing to prepare.
+     */
+    @Override
+    public boolean onPrepareTransaction(TransactionContext context) {
+        checkForNullContext(context);
+        ServiceTransactionState state = getState(context);
+        checkForGlobalTransactionNotStarted(state);
+        TransactionHelper helper = state.getGlobalTransactionHelper();
+        if (!helper.isConnectionAcquired()) {
+            return helper.prepare();
+        }
+        return helper.prepare() && prepareTransaction(helper.getConnection());
+    }
+
+    /**
+     * Called before the global transaction commits, returns false to roll it back instead.
+     */
+    protected boolean prepareTransaction(Connection connection) {
+        return true;
     }
 
     @Override
     public void onCommitTransaction(TransactionContext context) {
         checkForNullContext(context);
-        checkForGlobalTransactionNotStarted();
-        getGlobalTransactionHelper().commit();
-        checkForMismatchLocalTransactionCalls();
-        if (!getGlobalTransactionHelper().isTransactionStarted()) {
-            cleanGlobalTransactionHelper(context);
+        ServiceTransactionState state = getState(context);
+        checkForGlobalTransactionNotStarted(state);
+        try {
+            state.getGlobalTransactionHelper().commit();
+            checkForMismatchLocalTransactionCalls(state);
+        } finally {
+            endGlobalTransaction(state, context);
         }
-        cleanGlobalTransactionStartedMark();
+    }
+
+    /**
+     * A failed commit or rollback ends the global transaction as well, the helper has given up
+     * its connection and the service can start again.
+     */
+    private void endGlobalTransaction(ServiceTransactionState state, TransactionContext context) {
+        if (!state.getGlobalTransactionHelper().isTransactionStarted()) {
+            cleanGlobalTransactionHelper(state, context);
+        }
+        cleanGlobalTransactionStartedMark(state, context);
     }
 
     /**
@@ -227,9 +541,9 @@ public abstract class JDBCTransactionalService implements TransactionalService,
      * service class wide transaction count is used to avoid the mis-calculation
      * happen when the same class got registered more than once.
      */
-    private void checkForMismatchLocalTransactionCalls() {
-        if (!getServiceTransactionCount().isLastCall()
-                && isLocalTransactionStarted()) {
+    private void checkForMismatchLocalTransactionCalls(ServiceTransactionState state) {
+        if (!state.getServiceTransactionCount().isLastCall()
+                && null != state.getLocalTransactionHelper()) {
             throw new IllegalStateException("Local transaction is not handled properly. "
                     + "Ensure commit() or rollback() get invoked "
                     + "for each start() call.");
@@ -239,12 +553,13 @@ public abstract class JDBCTransactionalService implements TransactionalService,
     @Override
     public void onRollbackTransaction(TransactionContext context) {
         checkForNullContext(context);
-        checkForGlobalTransactionNotStarted();
-        getGlobalTransactionHelper().rollback();
-        if (!getGlobalTransactionHelper().isTransactionStarted()) {
-            cleanGlobalTransactionHelper(context);
+        ServiceTransactionState state = getState(context);
+        checkForGlobalTransactionNotStarted(state);
+        try {
+            state.getGlobalTransactionHelper().rollback();
+        } finally {
+            endGlobalTransaction(state, context);
         }
-        cleanGlobalTransactionStartedMark();
     }
 
     private void checkForNullContext(TransactionContext context) {
@@ -259,8 +574,8 @@ public abstract class JDBCTransactionalService implements TransactionalService,
         }
     }
 
-    private void checkForGlobalTransactionNotStarted() {
-        if (!isGlobalTransactionStarted()) {
+    private void checkForGlobalTransactionNotStarted(ServiceTransactionState state) {
+        if (!isGlobalTransactionStarted(state)) {
             throw new IllegalStateException("No global transaction!");
         }
     }
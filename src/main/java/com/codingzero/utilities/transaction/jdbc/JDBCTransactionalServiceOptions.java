@@ -0,0 +1,129 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options of a <tt>JDBCTransactionalService</tt>, read once when the service is constructed.
+ */
+public class JDBCTransactionalServiceOptions {
+
+    private boolean shared;
+    private String databaseGroup;
+    private boolean lazy;
+    private int batchSize;
+    private boolean nested;
+    private long defaultTimeoutNanos;
+
+    protected JDBCTransactionalServiceOptions() {
+        this.shared = false;
+        this.databaseGroup = null;
+        this.lazy = false;
+        this.batchSize = 100;
+        this.nested = false;
+        this.defaultTimeoutNanos = 0;
+    }
+
+    public static JDBCTransactionalServiceOptions create() {
+        return new JDBCTransactionalServiceOptions();
+    }
+
+    /**
+     * In shared mode one service instance can be used by many threads at the same time,
+     * transaction state is kept per thread instead of in the instance.
+     *
+     * A manager with concurrent start calls onStartTransaction() on other threads, a shared service needs
+     * a thread bound or scoped manager there to find its state on the caller's thread.
+     */
+    public JDBCTransactionalServiceOptions shared(boolean shared) {
+        this.shared = shared;
+        return this;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Services of the same group share one connection in a global transaction, even when they were built
+     * with different <tt>DataSource</tt> instances of the same database. Without a group services share a
+     * connection only with the ones built with the same <tt>DataSource</tt> instance.
+     */
+    public JDBCTransactionalServiceOptions databaseGroup(String databaseGroup) {
+        this.databaseGroup = databaseGroup;
+        return this;
+    }
+
+    public String getDatabaseGroup() {
+        return databaseGroup;
+    }
+
+    /**
+     * In lazy mode a global transaction gets its connection on the first getConnection() call instead of
+     * on start, a service which runs no SQL in the transaction holds no connection and commits nothing.
+     */
+    public JDBCTransactionalServiceOptions lazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Number of writes queued by batchUpdate() in a transaction before they run as a batch.
+     */
+    public JDBCTransactionalServiceOptions batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size need to be greater than 0.");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * In nested mode a start() inside a running local or global transaction sets a savepoint, its rollback()
+     * undoes only the work done since, the enclosing transaction goes on. Otherwise nested calls are flattened
+     * into the outermost transaction.
+     */
+    public JDBCTransactionalServiceOptions nested(boolean nested) {
+        this.nested = nested;
+        return this;
+    }
+
+    public boolean isNested() {
+        return nested;
+    }
+
+    /**
+     * Deadline of the transactions the service starts without one, local ones and global ones whose context
+     * has no deadline. 0 leaves them without a deadline.
+     */
+    public JDBCTransactionalServiceOptions defaultTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Default timeout cannot be negative.");
+        }
+        this.defaultTimeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    public long getDefaultTimeoutNanos() {
+        return defaultTimeoutNanos;
+    }
+
+    JDBCTransactionalServiceOptions copy() {
+        JDBCTransactionalServiceOptions copy = new JDBCTransactionalServiceOptions();
+        copy.shared = shared;
+        copy.databaseGroup = databaseGroup;
+        copy.lazy = lazy;
+        copy.batchSize = batchSize;
+        copy.nested = nested;
+        copy.defaultTimeoutNanos = defaultTimeoutNanos;
+        return copy;
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the statements of a connection wrapper, so that it learns when they run and not only when they are
+ * created. A statement can be created long before it runs, or run again in a later transaction once cached.
+ *
+ * The wrappers are proxies, every other call goes straight to the statement.
+ */
+final class ListeningStatements {
+
+    private ListeningStatements() {
+
+    }
+
+    static Statement wrap(Connection connection, Statement statement, ExecutionListener listener) {
+        return wrap(Statement.class, connection, statement, null, listener);
+    }
+
+    static PreparedStatement wrap(Connection connection,
+                                  PreparedStatement statement,
+                                  String sql,
+                                  ExecutionListener listener) {
+        return wrap(PreparedStatement.class, connection, statement, sql, listener);
+    }
+
+    static CallableStatement wrap(Connection connection,
+                                  CallableStatement statement,
+                                  String sql,
+                                  ExecutionListener listener) {
+        return wrap(CallableStatement.class, connection, statement, sql, listener);
+    }
+
+    private static <T extends Statement> T wrap(Class<T> type,
+                                                Connection connection,
+                                                T statement,
+                                                String sql,
+                                                ExecutionListener listener) {
+        if (null == statement) {
+            return null;
+        }
+        return type.cast(Proxy.newProxyInstance(ListeningStatements.class.getClassLoader(),
+                new Class<?>[] {type}, new ListeningHandler(connection, statement, sql, listener)));
+    }
+
+    /**
+     * Called before a statement runs or adds to its batch, with the SQL it runs, or null when that is
+     * not known, as for the batch of a plain statement.
+     */
+    interface ExecutionListener {
+
+        void beforeExecution(String sql) throws SQLException;
+
+    }
+
+    private static class ListeningHandler implements InvocationHandler {
+
+        private Connection connection;
+        private Statement statement;
+        private String sql;
+        private ExecutionListener listener;
+
+        ListeningHandler(Connection connection, Statement statement, String sql, ExecutionListener listener) {
+            this.connection = connection;
+            this.statement = statement;
+            this.sql = sql;
+            this.listener = listener;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(name)) {
+                    return proxy == args[0];
+                } else if ("hashCode".equals(name)) {
+                    return System.identityHashCode(proxy);
+                }
+            } else if (name.startsWith("execute") || "addBatch".equals(name)) {
+                listener.beforeExecution(sqlOf(args));
+            } else if ("getConnection".equals(name)) {
+                return connection;
+            } else if ("unwrap".equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private String sqlOf(Object[] args) {
+            if (null != args && args.length > 0 && args[0] instanceof String) {
+                return (String) args[0];
+            }
+            return sql;
+        }
+
+    }
+
+}
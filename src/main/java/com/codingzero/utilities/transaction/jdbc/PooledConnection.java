@@ -0,0 +1,202 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection borrowed from a <tt>ConnectionPool</tt>, closing it returns the physical connection to the pool.
+ *
+ * The statements it creates are closed when it is returned, with their result sets, so neither the next
+ * borrower nor this one can use them. They are wrapped to hand out this connection, not the physical one.
+ * Once closed, every call fails. Changes to the read-only, isolation, catalog and schema state are undone
+ * by the pool when the connection is returned.
+ */
+class PooledConnection extends DelegatingConnection {
+
+    private static final int PRUNE_INTERVAL = 64;
+    private static final ListeningStatements.ExecutionListener NO_LISTENER = sql -> { };
+
+    private ConnectionPool pool;
+    private ConnectionPool.PooledEntry entry;
+    private AtomicBoolean closed;
+    private List<Statement> statements;
+    private volatile boolean sessionChanged;
+
+    public PooledConnection(ConnectionPool pool, ConnectionPool.PooledEntry entry) {
+        this.pool = pool;
+        this.entry = entry;
+        this.closed = new AtomicBoolean(false);
+        this.statements = new ArrayList<>();
+        this.sessionChanged = false;
+    }
+
+    @Override
+    protected Connection getDelegate() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection is closed.");
+        }
+        return entry.getConnection();
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            closeStatements();
+            pool.giveBack(entry, sessionChanged);
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed.get() || entry.getConnection().isClosed();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        sessionChanged = true;
+        super.setReadOnly(readOnly);
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        sessionChanged = true;
+        super.setTransactionIsolation(level);
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        sessionChanged = true;
+        super.setCatalog(catalog);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        sessionChanged = true;
+        super.setSchema(schema);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return track(getDelegate().createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return track(getDelegate().createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        return track(getDelegate().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return track(getDelegate().prepareStatement(sql), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return track(getDelegate().prepareStatement(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql,
+                                              int resultSetType,
+                                              int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return track(getDelegate().prepareStatement(
+                sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return track(getDelegate().prepareStatement(sql, autoGeneratedKeys), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return track(getDelegate().prepareStatement(sql, columnIndexes), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return track(getDelegate().prepareStatement(sql, columnNames), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return track(getDelegate().prepareCall(sql), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return track(getDelegate().prepareCall(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql,
+                                         int resultSetType,
+                                         int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        return track(getDelegate().prepareCall(
+                sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    private Statement track(Statement statement) {
+        add(statement);
+        return ListeningStatements.wrap(this, statement, NO_LISTENER);
+    }
+
+    private PreparedStatement track(PreparedStatement statement, String sql) {
+        add(statement);
+        return ListeningStatements.wrap(this, statement, sql, NO_LISTENER);
+    }
+
+    private CallableStatement track(CallableStatement statement, String sql) {
+        add(statement);
+        return ListeningStatements.wrap(this, statement, sql, NO_LISTENER);
+    }
+
+    /**
+     * Statements closed by their user are dropped now and then, a long checkout does not keep them all.
+     */
+    private synchronized void add(Statement statement) {
+        if (null == statement) {
+            return;
+        }
+        if (statements.size() % PRUNE_INTERVAL == PRUNE_INTERVAL - 1) {
+            statements.removeIf(PooledConnection::isClosedQuietly);
+        }
+        statements.add(statement);
+    }
+
+    private synchronized void closeStatements() {
+        for (Statement statement: statements) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                //nothing, the connection goes back anyway
+            }
+        }
+        statements.clear();
+    }
+
+    private static boolean isClosedQuietly(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A provider keeps a <tt>ConnectionPool</tt> for each <tt>DataSource</tt>, for deployments without
+ * an external pool. Connections released by helpers and services go back to the pool.
+ *
+ * With session state tracking the pool wraps each physical connection once, so its state is known
+ * across borrows.
+ */
+public class PooledTransactionHelperProvider extends TransactionHelperProvider implements AutoCloseable {
+
+    private ConnectionPoolOptions poolOptions;
+    private ConcurrentMap<DataSource, ConnectionPool> pools;
+
+    public PooledTransactionHelperProvider() {
+        this(ConnectionPoolOptions.create());
+    }
+
+    public PooledTransactionHelperProvider(ConnectionPoolOptions poolOptions) {
+        this(poolOptions, TransactionHelperProviderOptions.create());
+    }
+
+    public PooledTransactionHelperProvider(ConnectionPoolOptions poolOptions,
+                                           TransactionHelperProviderOptions options) {
+        super(options);
+        this.poolOptions = poolOptions.copy();
+        if (options.isTrackSessionState()) {
+            this.poolOptions.trackSessionState(true);
+        }
+        this.pools = new ConcurrentHashMap<>();
+    }
+
+    public ConnectionPool getPool(DataSource dataSource) {
+        ConnectionPool pool = pools.get(dataSource);
+        if (null == pool) {
+            pool = pools.computeIfAbsent(dataSource, key -> new ConnectionPool(key, poolOptions));
+        }
+        return pool;
+    }
+
+    @Override
+    protected Connection openConnection(DataSource dataSource) throws SQLException {
+        return getPool(dataSource).borrow();
+    }
+
+    @Override
+    public void close() {
+        for (ConnectionPool pool: pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A connection of a read-only transaction, rejects prepared write statements before they reach the database.
+ *
+ * Statements created by createStatement() carry their SQL on execution, those are left to the database.
+ */
+class ReadOnlyConnection extends DelegatingConnection {
+
+    private static final String READ_ONLY_SQL_STATE = "25006";
+    private static final Set<String> WRITE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "INSERT", "UPDATE", "DELETE", "REPLACE", "MERGE", "UPSERT",
+            "CREATE", "DROP", "ALTER", "TRUNCATE", "RENAME", "GRANT", "REVOKE", "LOAD"));
+
+    private Connection connection;
+
+    ReadOnlyConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    protected Connection getDelegate() {
+        return connection;
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        if (!readOnly) {
+            throw new SQLNonTransientException(
+                    "Cannot switch a read-only transaction to read-write.", READ_ONLY_SQL_STATE);
+        }
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        checkForWrite(sql);
+        return connection.prepareStatement(sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        checkForWrite(sql);
+        return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql,
+                                              int resultSetType,
+                                              int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        checkForWrite(sql);
+        return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        checkForWrite(sql);
+        return connection.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        checkForWrite(sql);
+        return connection.prepareStatement(sql, columnIndexes);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        checkForWrite(sql);
+        return connection.prepareStatement(sql, columnNames);
+    }
+
+    private void checkForWrite(String sql) throws SQLException {
+        if (isWrite(sql)) {
+            throw new SQLNonTransientException(
+                    "Write statement in a read-only transaction, " + sql, READ_ONLY_SQL_STATE);
+        }
+    }
+
+    /**
+     * Looks at the first keyword, after leading blanks, comments and parentheses.
+     */
+    static boolean isWrite(String sql) {
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i ++;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (sql.startsWith("--", i) || c == '#') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else {
+                break;
+            }
+        }
+        int start = i;
+        while (i < length && Character.isLetter(sql.charAt(i))) {
+            i ++;
+        }
+        return WRITE_KEYWORDS.contains(sql.substring(start, i).toUpperCase(Locale.ROOT));
+    }
+
+}
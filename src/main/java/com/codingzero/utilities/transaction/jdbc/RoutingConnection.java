@@ -0,0 +1,355 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A connection of a <tt>RoutingDataSource</tt>, opens the connection of the primary or a replica on
+ * the first statement. Session changes made before are recorded and replayed on it.
+ *
+ * Writes are recorded when their statement runs, against the sticky window of the thread running it,
+ * so a commit on another thread still keeps the writing thread on the primary.
+ *
+ * A write in autocommit mode on a connection opened on a replica moves it to the primary. The replica
+ * connection stays open until this one is closed, so the statements and result sets already taken from it
+ * keep working.
+ */
+class RoutingConnection extends DelegatingConnection {
+
+    private RoutingDataSource dataSource;
+    private String username;
+    private String password;
+    private Connection connection;
+    private Connection replica; //left for the primary, kept for the statements taken from it
+    private boolean onPrimary;
+    private boolean pending;
+    private AtomicLong writtenBy;
+    private boolean closed;
+    private Boolean autoCommit;
+    private Boolean readOnly;
+    private Integer isolation;
+
+    RoutingConnection(RoutingDataSource dataSource, String username, String password) {
+        this.dataSource = dataSource;
+        this.username = username;
+        this.password = password;
+        this.connection = null;
+        this.replica = null;
+        this.onPrimary = false;
+        this.pending = false;
+        this.writtenBy = null;
+        this.closed = false;
+        this.autoCommit = null;
+        this.readOnly = null;
+        this.isolation = null;
+    }
+
+    boolean isOnPrimary() {
+        return onPrimary;
+    }
+
+    /**
+     * Other calls which need a connection open one on a replica if the connection is read-only,
+     * otherwise on the primary.
+     */
+    @Override
+    protected Connection getDelegate() throws SQLException {
+        if (null == connection) {
+            checkForClosed();
+            open(isReadOnly());
+        }
+        return connection;
+    }
+
+    /**
+     * Statements whose SQL is not known up front count as writes, except on a read-only connection.
+     */
+    private Connection forStatement(boolean write) throws SQLException {
+        checkForClosed();
+        write = write && !isReadOnly();
+        if (null == connection) {
+            open(isReadOnly() || (!write && getAutoCommit()));
+        } else if (write && !onPrimary) {
+            checkForWriteOnReplica();
+            replica = connection;
+            connection = null;
+            open(false);
+        }
+        if (!getAutoCommit()) {
+            pending = true;
+        }
+        return connection;
+    }
+
+    private Statement listen(Statement statement) {
+        return ListeningStatements.wrap(this, statement, this::beforeExecution);
+    }
+
+    private PreparedStatement listen(PreparedStatement statement, String sql) {
+        return ListeningStatements.wrap(this, statement, sql, this::beforeExecution);
+    }
+
+    private CallableStatement listen(CallableStatement statement, String sql) {
+        return ListeningStatements.wrap(this, statement, sql, ignored -> beforeWrite());
+    }
+
+    private void beforeExecution(String sql) throws SQLException {
+        if (null == sql || ReadOnlyConnection.isWrite(sql)) {
+            beforeWrite();
+        }
+    }
+
+    private void beforeWrite() throws SQLException {
+        if (!onPrimary || isReadOnly()) {
+            return;
+        }
+        AtomicLong stickyUntil = dataSource.getStickyUntil();
+        if (getAutoCommit()) {
+            dataSource.markWritten(stickyUntil);
+        } else {
+            writtenBy = stickyUntil;
+        }
+    }
+
+    private void open(boolean read) throws SQLException {
+        Connection opened = null;
+        if (read) {
+            opened = dataSource.openReadConnection(username, password);
+        }
+        onPrimary = null == opened;
+        if (onPrimary) {
+            opened = dataSource.openPrimaryConnection(username, password);
+        }
+        try {
+            if (null != readOnly) {
+                opened.setReadOnly(readOnly);
+            }
+            if (null != isolation) {
+                opened.setTransactionIsolation(isolation);
+            }
+            if (null != autoCommit) {
+                opened.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            opened.close();
+            throw e;
+        }
+        connection = opened;
+    }
+
+    private void checkForWriteOnReplica() throws SQLException {
+        if (pending) {
+            throw new SQLNonTransientException(
+                    "Write statement on a replica in a transaction which read from it already.", "25006");
+        }
+    }
+
+    private void checkForClosed() throws SQLException {
+        if (closed) {
+            throw new SQLNonTransientException("Connection is closed.", "08003");
+        }
+    }
+
+    private void endTransaction(boolean committed) {
+        if (committed && null != writtenBy) {
+            dataSource.markWritten(writtenBy);
+        }
+        pending = false;
+        writtenBy = null;
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        checkForClosed();
+        if (null != connection) {
+            connection.setAutoCommit(autoCommit);
+        }
+        if (autoCommit && !getAutoCommit()) {
+            endTransaction(true);
+        }
+        this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return null == autoCommit || autoCommit;
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        checkForClosed();
+        if (null != connection) {
+            connection.setReadOnly(readOnly);
+        }
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        return null != readOnly && readOnly;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        checkForClosed();
+        if (null != connection) {
+            connection.setTransactionIsolation(level);
+        }
+        this.isolation = level;
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        if (null == connection && null != isolation) {
+            return isolation;
+        }
+        return getDelegate().getTransactionIsolation();
+    }
+
+    /**
+     * A transaction which ran no statement has no connection to commit on.
+     */
+    @Override
+    public void commit() throws SQLException {
+        checkForClosed();
+        if (null != connection) {
+            connection.commit();
+        }
+        endTransaction(true);
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        checkForClosed();
+        if (null != connection) {
+            connection.rollback();
+        }
+        endTransaction(false);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (null != connection) {
+                connection.close();
+            }
+        } finally {
+            if (null != replica) {
+                replica.close();
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return closed || (null != connection && connection.isClosed());
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        return !closed && (null == connection || connection.isValid(timeout));
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return true;
+        }
+        return null != connection && connection.isWrapperFor(iface);
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        return forStatement(false).setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        return forStatement(false).setSavepoint(name);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return listen(forStatement(true).createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        return listen(forStatement(true).createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        return listen(forStatement(true)
+                .createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return listen(forStatement(ReadOnlyConnection.isWrite(sql)).prepareStatement(sql), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return listen(forStatement(ReadOnlyConnection.isWrite(sql))
+                .prepareStatement(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql,
+                                              int resultSetType,
+                                              int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        return listen(forStatement(ReadOnlyConnection.isWrite(sql))
+                .prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return listen(forStatement(ReadOnlyConnection.isWrite(sql))
+                .prepareStatement(sql, autoGeneratedKeys), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        return listen(forStatement(ReadOnlyConnection.isWrite(sql)).prepareStatement(sql, columnIndexes), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        return listen(forStatement(ReadOnlyConnection.isWrite(sql)).prepareStatement(sql, columnNames), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        return listen(forStatement(true).prepareCall(sql), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        return listen(forStatement(true).prepareCall(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql,
+                                         int resultSetType,
+                                         int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        return listen(forStatement(true)
+                .prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+}
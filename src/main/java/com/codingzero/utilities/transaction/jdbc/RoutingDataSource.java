@@ -0,0 +1,223 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A data source sends writes to a primary and reads to a set of replicas, without changes to the services using it.
+ *
+ * The connections it returns pick their database on the first statement: read-only connections and reads
+ * out of a transaction go to a replica, everything else to the primary. A connection out of a transaction
+ * which read from a replica moves to the primary on its first write.
+ *
+ * Replicas are used round-robin. A replica which fails to give a connection is ejected for a while, when
+ * no replica is left reads go to the primary. After a write ran by a thread is committed, that thread
+ * reads from the primary for the sticky window so it sees its own writes, even when the commit ran on
+ * another thread.
+ *
+ * The primary and replicas are expected to be pools themselves, a pool put over this data source would
+ * keep a connection on the database it picked first.
+ */
+public class RoutingDataSource implements DataSource {
+
+    private DataSource primary;
+    private List<Replica> replicas;
+    private RoutingDataSourceOptions options;
+    private AtomicInteger next;
+    private ThreadLocal<AtomicLong> stickyUntil;
+
+    public RoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this(primary, replicas, RoutingDataSourceOptions.create());
+    }
+
+    public RoutingDataSource(DataSource primary, List<DataSource> replicas, RoutingDataSourceOptions options) {
+        this.primary = primary;
+        List<Replica> replicaList = new ArrayList<>(replicas.size());
+        for (DataSource replica: replicas) {
+            replicaList.add(new Replica(replica));
+        }
+        this.replicas = Collections.unmodifiableList(replicaList);
+        this.options = options.copy();
+        this.next = new AtomicInteger();
+        this.stickyUntil = ThreadLocal.withInitial(AtomicLong::new);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return new RoutingConnection(this, null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return new RoutingConnection(this, username, password);
+    }
+
+    Connection openPrimaryConnection(String username, String password) throws SQLException {
+        return open(primary, username, password);
+    }
+
+    /**
+     * Returns a connection of the next healthy replica, or of the primary if there is none
+     * or the calling thread wrote within the sticky window.
+     */
+    Connection openReadConnection(String username, String password) throws SQLException {
+        if (isSticky()) {
+            return null;
+        }
+        int size = replicas.size();
+        for (int i = 0; i < size; i ++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), size));
+            if (!replica.isHealthy()) {
+                continue;
+            }
+            try {
+                return open(replica.getDataSource(), username, password);
+            } catch (SQLException e) {
+                eject(replica);
+            }
+        }
+        return null;
+    }
+
+    private Connection open(DataSource dataSource, String username, String password) throws SQLException {
+        if (null == username) {
+            return dataSource.getConnection();
+        }
+        return dataSource.getConnection(username, password);
+    }
+
+    /**
+     * Keeps the calling thread on the primary for the sticky window.
+     */
+    public void markWritten() {
+        markWritten(stickyUntil.get());
+    }
+
+    /**
+     * Returns the sticky window of the calling thread, for a write it runs which is committed later,
+     * maybe on another thread.
+     */
+    AtomicLong getStickyUntil() {
+        return stickyUntil.get();
+    }
+
+    void markWritten(AtomicLong until) {
+        until.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getStickyWindowMillis()));
+    }
+
+    public boolean isSticky() {
+        long until = stickyUntil.get().get();
+        return 0 != until && until - System.nanoTime() > 0;
+    }
+
+    private void eject(Replica replica) {
+        replica.setEjectedUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getEjectionMillis()));
+    }
+
+    /**
+     * Validates every replica and ejects the broken ones, can be scheduled by the application.
+     */
+    public void checkReplicas() {
+        for (Replica replica: replicas) {
+            try (Connection connection = replica.getDataSource().getConnection()) {
+                if (connection.isValid(options.getValidationTimeoutSeconds())) {
+                    replica.setEjectedUntil(0);
+                    continue;
+                }
+            } catch (SQLException e) {
+                //fall through, the replica is broken
+            }
+            eject(replica);
+        }
+    }
+
+    public int getHealthyReplicaCount() {
+        int count = 0;
+        for (Replica replica: replicas) {
+            if (replica.isHealthy()) {
+                count ++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+        for (Replica replica: replicas) {
+            replica.getDataSource().setLoginTimeout(seconds);
+        }
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    private static class Replica {
+
+        private DataSource dataSource;
+        private volatile long ejectedUntil;
+
+        public Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+            this.ejectedUntil = 0;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            long until = ejectedUntil;
+            return 0 == until || until - System.nanoTime() <= 0;
+        }
+
+        public void setEjectedUntil(long ejectedUntil) {
+            this.ejectedUntil = ejectedUntil;
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options of a <tt>RoutingDataSource</tt>, read once when it is constructed.
+ */
+public class RoutingDataSourceOptions {
+
+    private long stickyWindowMillis;
+    private long ejectionMillis;
+    private int validationTimeoutSeconds;
+
+    protected RoutingDataSourceOptions() {
+        this.stickyWindowMillis = TimeUnit.SECONDS.toMillis(2);
+        this.ejectionMillis = TimeUnit.SECONDS.toMillis(30);
+        this.validationTimeoutSeconds = 5;
+    }
+
+    public static RoutingDataSourceOptions create() {
+        return new RoutingDataSourceOptions();
+    }
+
+    /**
+     * How long a thread reads from the primary after it wrote, so it reads its own writes
+     * while the replicas catch up.
+     */
+    public RoutingDataSourceOptions stickyWindow(long time, TimeUnit unit) {
+        this.stickyWindowMillis = unit.toMillis(time);
+        return this;
+    }
+
+    public long getStickyWindowMillis() {
+        return stickyWindowMillis;
+    }
+
+    /**
+     * How long a replica gets no traffic after it failed to give a connection or a validation.
+     */
+    public RoutingDataSourceOptions ejectionTime(long time, TimeUnit unit) {
+        this.ejectionMillis = unit.toMillis(time);
+        return this;
+    }
+
+    public long getEjectionMillis() {
+        return ejectionMillis;
+    }
+
+    public RoutingDataSourceOptions validationTimeout(int seconds) {
+        this.validationTimeoutSeconds = seconds;
+        return this;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    RoutingDataSourceOptions copy() {
+        RoutingDataSourceOptions copy = new RoutingDataSourceOptions();
+        copy.stickyWindowMillis = stickyWindowMillis;
+        copy.ejectionMillis = ejectionMillis;
+        copy.validationTimeoutSeconds = validationTimeoutSeconds;
+        return copy;
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+/**
+ * Transaction state of a <tt>JDBCTransactionalService</tt> for one caller.
+ *
+ * A service owns a single instance by default, in shared mode it keeps one per thread.
+ */
+class ServiceTransactionState {
+
+    private TransactionHelper localTransactionHelper;
+    private TransactionHelper globalTransactionHelper;
+    private TransactionCount serviceTransactionCount;
+    private int nestedGlobalStarts;
+
+    public ServiceTransactionState() {
+        this.localTransactionHelper = null;
+        this.globalTransactionHelper = null;
+        this.serviceTransactionCount = null;
+        this.nestedGlobalStarts = 0;
+    }
+
+    public TransactionHelper getLocalTransactionHelper() {
+        return localTransactionHelper;
+    }
+
+    public void setLocalTransactionHelper(TransactionHelper localTransactionHelper) {
+        this.localTransactionHelper = localTransactionHelper;
+    }
+
+    public TransactionHelper getGlobalTransactionHelper() {
+        return globalTransactionHelper;
+    }
+
+    public void setGlobalTransactionHelper(TransactionHelper globalTransactionHelper) {
+        this.globalTransactionHelper = globalTransactionHelper;
+    }
+
+    public TransactionCount getServiceTransactionCount() {
+        return serviceTransactionCount;
+    }
+
+    public void setServiceTransactionCount(TransactionCount serviceTransactionCount) {
+        this.serviceTransactionCount = serviceTransactionCount;
+    }
+
+    /**
+     * Number of nested starts running on savepoints of the global transaction.
+     */
+    public int getNestedGlobalStarts() {
+        return nestedGlobalStarts;
+    }
+
+    public void setNestedGlobalStarts(int nestedGlobalStarts) {
+        this.nestedGlobalStarts = nestedGlobalStarts;
+    }
+
+    public boolean isIdle() {
+        return null == localTransactionHelper && null == globalTransactionHelper;
+    }
+
+}
@@ -0,0 +1,324 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+
+/**
+ * A connection remembers the autocommit, read-only, isolation and catalog state of the session.
+ *
+ * Changes are recorded and sent only when they differ from the state of the session, just before the
+ * next statement is created or runs, so a change which is undone before any statement runs costs no round trip.
+ * Commit and rollback are skipped when no statement ran since the last one. Statements are wrapped to tell
+ * when they run, a statement created in an earlier transaction, as a cached one, still counts when it runs again.
+ *
+ * The state is kept for the life of the physical connection, a pool wraps each physical connection once.
+ */
+public class SessionStateConnection extends DelegatingConnection {
+
+    private Connection connection;
+    private Boolean autoCommit;
+    private Boolean appliedAutoCommit;
+    private Boolean readOnly;
+    private Boolean appliedReadOnly;
+    private Integer isolation;
+    private Integer appliedIsolation;
+    private String catalog;
+    private String appliedCatalog;
+    private boolean dirty;
+    private ListeningStatements.ExecutionListener executionListener;
+
+    public SessionStateConnection(Connection connection) {
+        this.connection = connection;
+        this.autoCommit = null;
+        this.appliedAutoCommit = null;
+        this.readOnly = null;
+        this.appliedReadOnly = null;
+        this.isolation = null;
+        this.appliedIsolation = null;
+        this.catalog = null;
+        this.appliedCatalog = null;
+        this.dirty = false;
+        this.executionListener = sql -> beforeExecution();
+    }
+
+    @Override
+    protected Connection getDelegate() {
+        return connection;
+    }
+
+    /**
+     * Returns true if a statement ran in manual commit mode since the last commit or rollback.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Sends the recorded changes which differ from the state of the session.
+     */
+    public void applySessionState() throws SQLException {
+        if (null != catalog && !catalog.equals(appliedCatalog)) {
+            connection.setCatalog(catalog);
+            appliedCatalog = catalog;
+        }
+        if (null != isolation && !isolation.equals(appliedIsolation)) {
+            connection.setTransactionIsolation(isolation);
+            appliedIsolation = isolation;
+        }
+        if (null != readOnly && !readOnly.equals(appliedReadOnly)) {
+            connection.setReadOnly(readOnly);
+            appliedReadOnly = readOnly;
+        }
+        if (null != autoCommit && !autoCommit.equals(appliedAutoCommit)) {
+            connection.setAutoCommit(autoCommit);
+            appliedAutoCommit = autoCommit;
+        }
+    }
+
+    /**
+     * Sends the recorded changes before the connection is closed, so the session goes back with the state
+     * its last user set, e.g. the autocommit and read-only state restored at the end of a transaction.
+     * A state never sent is left as it is, the session still has the one it came with.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (connection.isClosed()) {
+            return;
+        }
+        try {
+            applyChangedSessionState();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void applyChangedSessionState() throws SQLException {
+        if (null != appliedCatalog && null != catalog && !catalog.equals(appliedCatalog)) {
+            connection.setCatalog(catalog);
+            appliedCatalog = catalog;
+        }
+        if (null != appliedIsolation && null != isolation && !isolation.equals(appliedIsolation)) {
+            connection.setTransactionIsolation(isolation);
+            appliedIsolation = isolation;
+        }
+        if (null != appliedReadOnly && null != readOnly && !readOnly.equals(appliedReadOnly)) {
+            connection.setReadOnly(readOnly);
+            appliedReadOnly = readOnly;
+        }
+        if (null != appliedAutoCommit && null != autoCommit && !autoCommit.equals(appliedAutoCommit)) {
+            connection.setAutoCommit(autoCommit);
+            appliedAutoCommit = autoCommit;
+        }
+    }
+
+    /**
+     * A session whose autocommit state was never read or set is taken as in a transaction.
+     */
+    private void beforeExecution() throws SQLException {
+        applySessionState();
+        if (!Boolean.TRUE.equals(appliedAutoCommit)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Switching autocommit on commits a running transaction, that is sent at once.
+     */
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        this.autoCommit = autoCommit;
+        if (autoCommit && dirty) {
+            applySessionState();
+            dirty = false;
+        }
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        if (null != autoCommit) {
+            return autoCommit;
+        }
+        if (null == appliedAutoCommit) {
+            appliedAutoCommit = connection.getAutoCommit();
+        }
+        return appliedAutoCommit;
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        if (null != readOnly) {
+            return readOnly;
+        }
+        if (null == appliedReadOnly) {
+            appliedReadOnly = connection.isReadOnly();
+        }
+        return appliedReadOnly;
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        this.isolation = level;
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        if (null != isolation) {
+            return isolation;
+        }
+        if (null == appliedIsolation) {
+            appliedIsolation = connection.getTransactionIsolation();
+        }
+        return appliedIsolation;
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        this.catalog = catalog;
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        if (null != catalog) {
+            return catalog;
+        }
+        if (null == appliedCatalog) {
+            appliedCatalog = connection.getCatalog();
+        }
+        return appliedCatalog;
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        if (!dirty) {
+            return;
+        }
+        connection.commit();
+        dirty = false;
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        if (!dirty) {
+            return;
+        }
+        connection.rollback();
+        dirty = false;
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        beforeExecution();
+        return connection.setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        beforeExecution();
+        return connection.setSavepoint(name);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        applySessionState();
+        return listen(connection.createStatement());
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        applySessionState();
+        return listen(connection.createStatement(resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+            throws SQLException {
+        applySessionState();
+        return listen(connection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        applySessionState();
+        return listen(connection.prepareStatement(sql), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        applySessionState();
+        return listen(connection.prepareStatement(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql,
+                                              int resultSetType,
+                                              int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        applySessionState();
+        return listen(connection.prepareStatement(
+                sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        applySessionState();
+        return listen(connection.prepareStatement(sql, autoGeneratedKeys), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        applySessionState();
+        return listen(connection.prepareStatement(sql, columnIndexes), sql);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        applySessionState();
+        return listen(connection.prepareStatement(sql, columnNames), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        applySessionState();
+        return listen(connection.prepareCall(sql), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        applySessionState();
+        return listen(connection.prepareCall(sql, resultSetType, resultSetConcurrency), sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql,
+                                         int resultSetType,
+                                         int resultSetConcurrency,
+                                         int resultSetHoldability) throws SQLException {
+        applySessionState();
+        return listen(connection.prepareCall(
+                sql, resultSetType, resultSetConcurrency, resultSetHoldability), sql);
+    }
+
+    private Statement listen(Statement statement) {
+        return ListeningStatements.wrap(this, statement, executionListener);
+    }
+
+    private PreparedStatement listen(PreparedStatement statement, String sql) {
+        return ListeningStatements.wrap(this, statement, sql, executionListener);
+    }
+
+    private CallableStatement listen(CallableStatement statement, String sql) {
+        return ListeningStatements.wrap(this, statement, sql, executionListener);
+    }
+
+}
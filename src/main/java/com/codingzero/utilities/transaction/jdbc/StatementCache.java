@@ -0,0 +1,211 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used prepared statements of one connection, keyed by SQL and result set options.
+ *
+ * A statement is taken out of the cache while it is in use, statements given back which came
+ * from somewhere else are closed. A statement given back is reset before it is kept: its parameters,
+ * batch and result set are cleared and the settings it was created with are restored. One which cannot
+ * be reset is closed instead.
+ */
+class StatementCache {
+
+    private int maxSize;
+    private LinkedHashMap<StatementKey, PreparedStatement> idleStatements;
+    private Map<PreparedStatement, CachedStatement> cachedStatements;
+    private Map<PreparedStatement, CachedStatement> usedStatements;
+
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.idleStatements = new LinkedHashMap<>(16, 0.75f, true);
+        this.cachedStatements = new IdentityHashMap<>();
+        this.usedStatements = new IdentityHashMap<>();
+    }
+
+    synchronized PreparedStatement take(StatementKey key) {
+        PreparedStatement statement = idleStatements.remove(key);
+        if (null == statement) {
+            return null;
+        }
+        CachedStatement cached = cachedStatements.remove(statement);
+        try {
+            if (statement.isClosed()) {
+                return null;
+            }
+        } catch (SQLException e) {
+            return null;
+        }
+        usedStatements.put(statement, cached);
+        return statement;
+    }
+
+    synchronized void track(PreparedStatement statement, StatementKey key) throws SQLException {
+        usedStatements.put(statement, new CachedStatement(key, statement));
+    }
+
+    /**
+     * Keeps the statement for the next use, returns false if it is not from this cache.
+     */
+    synchronized boolean giveBack(PreparedStatement statement) throws SQLException {
+        CachedStatement cached = usedStatements.remove(statement);
+        if (null == cached) {
+            return false;
+        }
+        if (statement.isClosed()) {
+            return true;
+        }
+        if (idleStatements.containsKey(cached.key)) {
+            statement.close();
+            return true;
+        }
+        try {
+            cached.reset(statement);
+        } catch (SQLException e) {
+            statement.close();
+            return true;
+        }
+        idleStatements.put(cached.key, statement);
+        cachedStatements.put(statement, cached);
+        if (idleStatements.size() > maxSize) {
+            Iterator<PreparedStatement> eldest = idleStatements.values().iterator();
+            PreparedStatement evicted = eldest.next();
+            eldest.remove();
+            cachedStatements.remove(evicted);
+            evicted.close();
+        }
+        return true;
+    }
+
+    synchronized int size() {
+        return idleStatements.size();
+    }
+
+    /**
+     * Closes the cached statements, the ones in use are left to their users.
+     */
+    synchronized void clear() {
+        for (PreparedStatement statement: idleStatements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                //nothing, the connection is released anyway
+            }
+        }
+        idleStatements.clear();
+        cachedStatements.clear();
+        usedStatements.clear();
+    }
+
+    /**
+     * The key of a statement and the settings it was created with.
+     */
+    private static final class CachedStatement {
+
+        private final StatementKey key;
+        private final int maxRows;
+        private final int maxFieldSize;
+        private final int fetchSize;
+        private final int fetchDirection;
+        private final int queryTimeout;
+
+        CachedStatement(StatementKey key, PreparedStatement statement) throws SQLException {
+            this.key = key;
+            this.maxRows = statement.getMaxRows();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.fetchSize = statement.getFetchSize();
+            this.fetchDirection = statement.getFetchDirection();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        void reset(PreparedStatement statement) throws SQLException {
+            ResultSet resultSet = statement.getResultSet();
+            if (null != resultSet) {
+                resultSet.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+            if (statement.getMaxRows() != maxRows) {
+                statement.setMaxRows(maxRows);
+            }
+            if (statement.getMaxFieldSize() != maxFieldSize) {
+                statement.setMaxFieldSize(maxFieldSize);
+            }
+            if (statement.getFetchSize() != fetchSize) {
+                statement.setFetchSize(fetchSize);
+            }
+            if (statement.getFetchDirection() != fetchDirection) {
+                statement.setFetchDirection(fetchDirection);
+            }
+            if (statement.getQueryTimeout() != queryTimeout) {
+                statement.setQueryTimeout(queryTimeout);
+            }
+        }
+    }
+
+    static final class StatementKey {
+
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int resultSetHoldability;
+        private final int autoGeneratedKeys;
+        private final int[] columnIndexes;
+        private final String[] columnNames;
+        private final int hash;
+
+        StatementKey(String sql,
+                     int resultSetType,
+                     int resultSetConcurrency,
+                     int resultSetHoldability,
+                     int autoGeneratedKeys,
+                     int[] columnIndexes,
+                     String[] columnNames) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            this.columnIndexes = null == columnIndexes ? null : columnIndexes.clone();
+            this.columnNames = null == columnNames ? null : columnNames.clone();
+            this.hash = 31 * Objects.hash(sql, resultSetType, resultSetConcurrency,
+                    resultSetHoldability, autoGeneratedKeys)
+                    + 31 * Arrays.hashCode(this.columnIndexes) + Arrays.hashCode(this.columnNames);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey that = (StatementKey) o;
+            return hash == that.hash
+                    && resultSetType == that.resultSetType
+                    && resultSetConcurrency == that.resultSetConcurrency
+                    && resultSetHoldability == that.resultSetHoldability
+                    && autoGeneratedKeys == that.autoGeneratedKeys
+                    && sql.equals(that.sql)
+                    && Arrays.equals(columnIndexes, that.columnIndexes)
+                    && Arrays.equals(columnNames, that.columnNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
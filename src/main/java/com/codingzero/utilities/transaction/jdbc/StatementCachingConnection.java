@@ -0,0 +1,96 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import com.codingzero.utilities.transaction.jdbc.StatementCache.StatementKey;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A connection of a transaction helper, reuses the prepared statements given back to its <tt>StatementCache</tt>.
+ */
+class StatementCachingConnection extends DelegatingConnection {
+
+    private static final int NONE = -1;
+
+    private Connection connection;
+    private StatementCache cache;
+
+    StatementCachingConnection(Connection connection, StatementCache cache) {
+        this.connection = connection;
+        this.cache = cache;
+    }
+
+    @Override
+    protected Connection getDelegate() {
+        return connection;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        StatementKey key = new StatementKey(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, NONE, NONE, null, null);
+        return prepare(key, () -> connection.prepareStatement(sql));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency)
+            throws SQLException {
+        StatementKey key = new StatementKey(sql, resultSetType, resultSetConcurrency, NONE, NONE, null, null);
+        return prepare(key, () -> connection.prepareStatement(sql, resultSetType, resultSetConcurrency));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql,
+                                              int resultSetType,
+                                              int resultSetConcurrency,
+                                              int resultSetHoldability) throws SQLException {
+        StatementKey key = new StatementKey(sql,
+                resultSetType, resultSetConcurrency, resultSetHoldability, NONE, null, null);
+        return prepare(key, () -> connection.prepareStatement(
+                sql, resultSetType, resultSetConcurrency, resultSetHoldability));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        StatementKey key = new StatementKey(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, NONE, autoGeneratedKeys, null, null);
+        return prepare(key, () -> connection.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        StatementKey key = new StatementKey(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, NONE, NONE, columnIndexes, null);
+        return prepare(key, () -> connection.prepareStatement(sql, columnIndexes));
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        StatementKey key = new StatementKey(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, NONE, NONE, null, columnNames);
+        return prepare(key, () -> connection.prepareStatement(sql, columnNames));
+    }
+
+    private PreparedStatement prepare(StatementKey key, StatementFactory factory) throws SQLException {
+        PreparedStatement statement = cache.take(key);
+        if (null == statement) {
+            statement = factory.prepare();
+            try {
+                cache.track(statement, key);
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+        return statement;
+    }
+
+    private interface StatementFactory {
+
+        PreparedStatement prepare() throws SQLException;
+
+    }
+
+}
@@ -1,68 +1,591 @@
 package com.codingzero.utilities.transaction.jdbc;
 
+import com.codingzero.utilities.transaction.jfr.TransactionEvents;
+import com.codingzero.utilities.transaction.metrics.TransactionMetrics;
+
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+/**
+ * A helper can be shared by services whose callbacks run on different threads,
+ * e.g. with parallel commit, so the count and the connection are guarded by a lock.
+ *
+ * A lazy helper gets its connection on the first getConnection() of a started transaction,
+ * commit and rollback of a transaction which never asked for it are no-ops.
+ *
+ * A read-only transaction marks its connection read-only, so MySQL assigns it no transaction id and
+ * its commit has nothing to write. Its connection rejects prepared write statements up front.
+ *
+ * With a statement cache, prepared statements given back through {@link #releaseStatement(PreparedStatement)}
+ * are reused by the next prepare of the same SQL on the connection, until the connection is released.
+ *
+ * Writes queued by {@link #addBatch(String, Object[], int)} run as JDBC batches when the batch is full, before
+ * the connection is handed out again, on prepare and on commit. If a batch fails the transaction can only
+ * roll back, commit() rolls it back and throws.
+ *
+ * A nested start sets a savepoint when a transaction is running already, the matching commit keeps the work
+ * for the enclosing level and the matching rollback undoes it back to the savepoint only.
+ *
+ * A transaction with a deadline gives its statements the time left as query timeout. When the deadline passes
+ * a watchdog thread cancels and closes the statements, rolls back and closes the connection, so its locks and the
+ * pooled connection are freed even if the caller is stuck. The transaction then fails on the next use and on
+ * commit, and still needs its commit or rollback calls. Statements the caller still holds fail with a timeout.
+ */
 public class TransactionHelper {
 
-    private Connection connection;
+    private static final long EXPIRY_RETRY_NANOS = 10_000_000L;
+
+    private volatile Connection connection;
+    private volatile Connection userConnection; //the connection handed out, may wrap the physical one
+    private Supplier<Connection> connectionSupplier;
+    private StatementCache statementCache;
+    private WriteBatch writeBatch;
+    private RuntimeException batchFailure;
+    private Deque<Savepoint> savepoints;
+    private boolean readOnly;
+    private volatile boolean deadlineSet;
+    private volatile long deadline;
+    private volatile DeadlineConnection deadlineConnection;
+    private ScheduledFuture<?> expiry;
+    private volatile boolean expired;
+    private long connectionAcquiredNanos;
+    private Object connectionHoldEvent;
+    private TransactionMetrics metrics;
     private TransactionCount transactionCount;
+    private ReentrantLock lock;
 
     public TransactionHelper(Connection connection) {
+        this(connection, 0);
+    }
+
+    public TransactionHelper(Connection connection, int statementCacheSize) {
+        this.connectionSupplier = null;
+        this.statementCache = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
+        this.writeBatch = new WriteBatch();
+        this.batchFailure = null;
+        this.savepoints = new ArrayDeque<>();
+        this.readOnly = false;
+        this.deadlineSet = false;
+        this.expired = false;
+        this.metrics = TransactionMetrics.NONE;
+        this.transactionCount = new TransactionCount();
+        this.lock = new ReentrantLock();
         setConnection(connection);
+    }
+
+    public TransactionHelper(Supplier<Connection> connectionSupplier) {
+        this(connectionSupplier, 0);
+    }
+
+    public TransactionHelper(Supplier<Connection> connectionSupplier, int statementCacheSize) {
+        this.connection = null;
+        this.userConnection = null;
+        this.connectionSupplier = connectionSupplier;
+        this.statementCache = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
+        this.writeBatch = new WriteBatch();
+        this.batchFailure = null;
+        this.savepoints = new ArrayDeque<>();
+        this.readOnly = false;
+        this.deadlineSet = false;
+        this.expired = false;
+        this.metrics = TransactionMetrics.NONE;
         this.transactionCount = new TransactionCount();
+        this.lock = new ReentrantLock();
     }
 
     public TransactionCount getTransactionCount() {
         return transactionCount;
     }
 
+    /**
+     * Records how long each connection is held, from when the helper gets it to when it closes it.
+     */
+    void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     private void setConnection(Connection connection) {
         try {
+            connectionAcquiredNanos = System.nanoTime();
+            connectionHoldEvent = TransactionEvents.beginConnectionHold();
+            connection.setAutoCommit(false);
+            Connection userConnection = connection;
+            if (null != statementCache) {
+                userConnection = new StatementCachingConnection(connection, statementCache);
+            }
+            if (readOnly) {
+                connection.setReadOnly(true);
+                userConnection = new ReadOnlyConnection(userConnection);
+            }
+            if (deadlineSet) {
+                deadlineConnection = new DeadlineConnection(userConnection, deadline);
+                userConnection = deadlineConnection;
+            }
+            this.userConnection = userConnection;
             this.connection = connection;
-            this.connection.setAutoCommit(false);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
+    public boolean isReadOnly() {
+        lock.lock();
+        try {
+            return readOnly;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public boolean isTransactionStarted() {
-        return transactionCount.getStarts() > 0;
+        lock.lock();
+        try {
+            return transactionCount.getStarts() > 0;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public Connection getConnection() {
-        return connection;
+        checkForExpired();
+        if ((null == connection && null != connectionSupplier) || !writeBatch.isEmpty()) {
+            lock.lock();
+            try {
+                acquireConnection();
+                flushBatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return userConnection;
+    }
+
+    private void acquireConnection() {
+        if (null == connection && null != connectionSupplier && transactionCount.getStarts() > 0) {
+            setConnection(connectionSupplier.get());
+        }
+    }
+
+    /**
+     * Queues a write of the running transaction, the batch runs once it holds the given number of writes.
+     */
+    public void addBatch(String sql, Object[] parameters, int batchSize) {
+        lock.lock();
+        try {
+            checkForTransactionNotStarted();
+            checkForExpired();
+            if (readOnly) {
+                throw new IllegalStateException("Cannot queue writes in a read-only transaction!");
+            }
+            writeBatch.add(sql, parameters);
+            if (writeBatch.size() >= batchSize) {
+                flushBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushBatch() {
+        if (writeBatch.isEmpty()) {
+            return;
+        }
+        try {
+            acquireConnection();
+            writeBatch.execute(userConnection, this::giveBackStatement);
+        } catch (SQLException e) {
+            batchFailure = new RuntimeException(e);
+            throw batchFailure;
+        } catch (RuntimeException e) {
+            batchFailure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a prepared statement of the connection back to the statement cache,
+     * returns false if it is not cached, then the caller closes it.
+     */
+    public boolean releaseStatement(PreparedStatement statement) {
+        try {
+            return giveBackStatement(statement);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Statements of a transaction with a deadline are wrapped, the one they wrap goes back to the cache.
+     */
+    private boolean giveBackStatement(PreparedStatement statement) throws SQLException {
+        if (null == statementCache) {
+            return false;
+        }
+        DeadlineConnection deadlineConnection = this.deadlineConnection;
+        if (null != deadlineConnection) {
+            statement = deadlineConnection.original(statement);
+        }
+        return statementCache.giveBack(statement);
     }
 
+    /**
+     * Returns false if a lazy helper has not got its connection yet.
+     */
+    public boolean isConnectionAcquired() {
+        return null != connection;
+    }
+
+    /**
+     * Starts the transaction, or joins it. A read-only transaction cannot be joined for writes.
+     */
     public void startTransaction() {
-        transactionCount.start();
+        lock.lock();
+        try {
+            if (readOnly && transactionCount.getStarts() > 0) {
+                throw new IllegalStateException("Read-only transaction is started, cannot join it for writes!");
+            }
+            transactionCount.start();
+            emitNesting("Start");
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public void commit() {
-        checkForTransactionNotStarted();
-        transactionCount.commit();
-        if (!transactionCount.isLastCall()) {
+    /**
+     * Starts the transaction, or sets a savepoint in the running one. Queued writes run first,
+     * so they stay with the enclosing level.
+     */
+    public void startNestedTransaction() {
+        lock.lock();
+        try {
+            if (transactionCount.getStarts() == 0) {
+                startTransaction();
+                return;
+            }
+            checkForExpired();
+            acquireConnection();
+            flushBatch();
+            savepoints.push(connection.setSavepoint());
+            emitNesting("Start");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of savepoints set by nested starts and not committed or rolled back yet.
+     */
+    public int getNestingLevel() {
+        lock.lock();
+        try {
+            return savepoints.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the deadline of the running transaction, a <tt>System.nanoTime()</tt> value. A transaction
+     * keeps the earliest deadline it is given.
+     */
+    public void setDeadline(long deadline) {
+        lock.lock();
+        try {
+            checkForTransactionNotStarted();
+            if (deadlineSet && deadline - this.deadline >= 0) {
+                return;
+            }
+            this.deadline = deadline;
+            this.deadlineSet = true;
+            if (null != expiry) {
+                expiry.cancel(false);
+            }
+            expiry = TransactionWatchdog.schedule(this::expire, deadline - System.nanoTime());
+            if (null != deadlineConnection) {
+                deadlineConnection.setDeadline(deadline);
+            } else if (null != userConnection) {
+                deadlineConnection = new DeadlineConnection(userConnection, deadline);
+                userConnection = deadlineConnection;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns true if the deadline of the running transaction passed and its connection was taken away.
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Runs on the watchdog thread. Statements are cancelled first without the lock, so that a caller
+     * blocked in a batch under the lock lets it go. They are closed before the connection is released,
+     * a caller still holding one gets a timeout when it runs it.
+     */
+    private void expire() {
+        if (!isDeadlinePassed()) {
+            return;
+        }
+        DeadlineConnection deadlineConnection = this.deadlineConnection;
+        if (null != deadlineConnection) {
+            deadlineConnection.cancelStatements();
+        }
+        if (!lock.tryLock()) {
+            TransactionWatchdog.schedule(this::expire, EXPIRY_RETRY_NANOS);
             return;
         }
         try {
-            connection.commit();
+            if (expired || !isDeadlinePassed()) {
+                return;
+            }
+            expired = true;
+            writeBatch.clear();
+            if (null != this.deadlineConnection) {
+                this.deadlineConnection.closeStatements();
+            }
+            releaseExpiredConnection();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isDeadlinePassed() {
+        return deadlineSet && deadline - System.nanoTime() <= 0;
+    }
+
+    private void releaseExpiredConnection() {
+        try {
+            if (null != connection) {
+                connection.rollback();
+            }
+            closeConnection();
+        } catch (SQLException e) {
+            try {
+                connection.close();
+            } catch (SQLException closeFailure) {
+                //nothing, the connection is dropped anyway
+            }
+        } finally {
+            connection = null;
+            userConnection = null;
+            deadlineConnection = null;
+        }
+    }
+
+    /**
+     * Starts a read-only transaction, or joins the running one, read-only or not.
+     */
+    public void startReadOnlyTransaction() {
+        lock.lock();
+        try {
+            if (transactionCount.getStarts() == 0 && !readOnly) {
+                readOnly = true;
+                if (null != connection) {
+                    connection.setReadOnly(true);
+                    userConnection = new ReadOnlyConnection(userConnection);
+                }
+            }
+            transactionCount.start();
+            emitNesting("Start");
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits the transaction, or ends the innermost nested level keeping its work for the enclosing one.
+     */
+    public void commit() {
+        lock.lock();
+        try {
+            checkForTransactionNotStarted();
+            if (!savepoints.isEmpty()) {
+                Savepoint savepoint = savepoints.pop();
+                emitNesting("Commit");
+                releaseSavepoint(savepoint);
+                return;
+            }
+            transactionCount.commit();
+            emitNesting("Commit");
+            if (!transactionCount.isLastCall()) {
+                return;
+            }
+            if (expired) {
+                cleanTransaction();
+                throw new IllegalStateException("Transaction deadline passed, it is rolled back!");
+            }
+            if (null == batchFailure) {
+                flushQuietly();
+            }
+            if (null != batchFailure) {
+                rollbackFailedBatch();
+            }
+            try {
+                if (null != connection) {
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                abandonTransaction(e);
+                throw e;
+            }
             cleanTransaction();
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
         }
     }
 
-    public void rollback() {
-        checkForTransactionNotStarted();
-        transactionCount.rollback();
-        if (!transactionCount.isLastCall()) {
+    /**
+     * Frees the savepoint of a nested level which ended, drivers which cannot release one keep it
+     * until the transaction ends.
+     */
+    private void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        if (null == connection) {
             return;
         }
         try {
-            connection.rollback();
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLFeatureNotSupportedException e) {
+            //nothing, the savepoint ends with the transaction
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flushBatch();
+        } catch (RuntimeException e) {
+            //nothing, the failure is reported by rollbackFailedBatch()
+        }
+    }
+
+    private void rollbackFailedBatch() throws SQLException {
+        RuntimeException failure = batchFailure;
+        try {
+            if (null != connection) {
+                connection.rollback();
+            }
+        } finally {
+            cleanTransaction();
+        }
+        throw new IllegalStateException("Batched write failed, the transaction is rolled back!", failure);
+    }
+
+    /**
+     * Gives the connection back after the final commit or rollback failed, so that it does not leak. It is
+     * rolled back first, restoring auto commit must not commit what is left of the transaction.
+     */
+    private void abandonTransaction(SQLException failure) {
+        try {
+            if (null != connection) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+        try {
+            cleanTransaction();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Rolls back the transaction, or only the work of the innermost nested level.
+     */
+    public void rollback() {
+        lock.lock();
+        try {
+            checkForTransactionNotStarted();
+            if (!savepoints.isEmpty()) {
+                Savepoint savepoint = savepoints.pop();
+                emitNesting("Rollback");
+                writeBatch.clear();
+                if (null != connection) {
+                    connection.rollback(savepoint);
+                }
+                releaseSavepoint(savepoint);
+                return;
+            }
+            transactionCount.rollback();
+            emitNesting("Rollback");
+            writeBatch.clear();
+            if (!transactionCount.isLastCall()) {
+                return;
+            }
+            try {
+                if (null != connection) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                abandonTransaction(e);
+                throw e;
+            }
+            cleanTransaction();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the queued writes, returns true if they succeeded and the transaction still has
+     * an open connection to commit on.
+     */
+    public boolean prepare() {
+        lock.lock();
+        try {
+            checkForTransactionNotStarted();
+            if (null == batchFailure) {
+                flushBatch();
+            }
+            return !expired && null == batchFailure && (null == connection || !connection.isClosed());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives the connection back without running a transaction on it, e.g. when another helper is used instead.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            if (isTransactionStarted()) {
+                throw new IllegalStateException("Transaction is started, commit or rollback it instead!");
+            }
             cleanTransaction();
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void emitNesting(String operation) {
+        TransactionEvents.nesting(operation, transactionCount.getStarts(), savepoints.size());
+    }
+
+    private void checkForExpired() {
+        if (expired) {
+            throw new IllegalStateException("Transaction deadline passed, it is rolled back!");
         }
     }
 
@@ -73,10 +596,40 @@ public class TransactionHelper {
     }
 
     private void cleanTransaction() throws SQLException {
-        connection.setAutoCommit(true);
-        connection.close();
+        writeBatch.clear();
+        batchFailure = null;
+        savepoints.clear();
+        if (null != statementCache) {
+            statementCache.clear();
+        }
+        if (null != expiry) {
+            expiry.cancel(false);
+            expiry = null;
+        }
+        closeConnection();
         connection = null;
+        userConnection = null;
+        deadlineConnection = null;
+        deadlineSet = false;
+        expired = false;
+        readOnly = false;
         transactionCount = new TransactionCount();
     }
 
+    private void closeConnection() throws SQLException {
+        if (null != connection) {
+            metrics.recordConnectionHold(System.nanoTime() - connectionAcquiredNanos);
+            TransactionEvents.endConnectionHold(connectionHoldEvent);
+            connectionHoldEvent = null;
+            try {
+                connection.setAutoCommit(true);
+                if (readOnly) {
+                    connection.setReadOnly(false);
+                }
+            } finally {
+                connection.close();
+            }
+        }
+    }
+
 }
@@ -1,16 +1,88 @@
 package com.codingzero.utilities.transaction.jdbc;
 
+import com.codingzero.utilities.transaction.jfr.TransactionEvents;
+
 import javax.sql.DataSource;
+import java.sql.Connection;
 import java.sql.SQLException;
 
 public class TransactionHelperProvider {
 
+    private TransactionHelperProviderOptions options;
+    private ConnectionLeakDetector leakDetector;
+
+    public TransactionHelperProvider() {
+        this(TransactionHelperProviderOptions.create());
+    }
+
+    public TransactionHelperProvider(TransactionHelperProviderOptions options) {
+        this.options = options.copy();
+        this.leakDetector = null;
+        if (this.options.getLeakThresholdNanos() > 0) {
+            this.leakDetector = new ConnectionLeakDetector(this.options.getLeakThresholdNanos(),
+                    this.options.getLeakStackSampleRate(), this.options.getLeakListener());
+        }
+    }
+
+    public TransactionHelperProviderOptions getOptions() {
+        return options.copy();
+    }
+
     public TransactionHelper get(DataSource dataSource) {
+        TransactionHelper helper = new TransactionHelper(getConnection(dataSource), options.getStatementCacheSize());
+        helper.setMetrics(options.getMetrics());
+        return helper;
+    }
+
+    /**
+     * Returns a helper which gets its connection on the first use in a transaction.
+     */
+    public TransactionHelper getLazy(DataSource dataSource) {
+        TransactionHelper helper =
+                new TransactionHelper(() -> getConnection(dataSource), options.getStatementCacheSize());
+        helper.setMetrics(options.getMetrics());
+        return helper;
+    }
+
+    /**
+     * Returns a connection for work out of a transaction, closing it releases it.
+     */
+    public Connection getConnection(DataSource dataSource) {
+        long begin = System.nanoTime();
+        Object event = TransactionEvents.beginConnectionAcquire();
+        boolean failed = true;
         try {
-            return new TransactionHelper(dataSource.getConnection());
+            Connection connection = wrap(openConnection(dataSource));
+            failed = false;
+            return connection;
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            options.getMetrics().recordConnectionAcquisition(System.nanoTime() - begin, failed);
+            TransactionEvents.endConnectionAcquire(event, failed);
+        }
+    }
+
+    /**
+     * Returns the number of connections handed out and not closed yet, -1 without leak detection.
+     */
+    public int getOutstandingConnectionCount() {
+        return null == leakDetector ? -1 : leakDetector.getOutstandingCount();
+    }
+
+    protected Connection openConnection(DataSource dataSource) throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    protected Connection wrap(Connection connection) throws SQLException {
+        if (options.isTrackSessionState()
+                && !connection.isWrapperFor(SessionStateConnection.class)) {
+            connection = new SessionStateConnection(connection);
+        }
+        if (null != leakDetector) {
+            connection = leakDetector.track(connection);
         }
+        return connection;
     }
 
 }
@@ -0,0 +1,127 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import com.codingzero.utilities.transaction.metrics.TransactionMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options of a <tt>TransactionHelperProvider</tt>, read once when the provider is constructed.
+ */
+public class TransactionHelperProviderOptions {
+
+    private boolean trackSessionState;
+    private int statementCacheSize;
+    private long leakThresholdNanos;
+    private ConnectionLeakListener leakListener;
+    private double leakStackSampleRate;
+    private TransactionMetrics metrics;
+
+    protected TransactionHelperProviderOptions() {
+        this.trackSessionState = false;
+        this.statementCacheSize = 0;
+        this.leakThresholdNanos = 0;
+        this.leakListener = null;
+        this.leakStackSampleRate = 0.01;
+        this.metrics = TransactionMetrics.NONE;
+    }
+
+    public static TransactionHelperProviderOptions create() {
+        return new TransactionHelperProviderOptions();
+    }
+
+    /**
+     * Wraps connections in a <tt>SessionStateConnection</tt>, so that session changes which are
+     * undone before any statement runs, like the autocommit switch of an empty transaction, cost no round trip.
+     */
+    public TransactionHelperProviderOptions trackSessionState(boolean trackSessionState) {
+        this.trackSessionState = trackSessionState;
+        return this;
+    }
+
+    public boolean isTrackSessionState() {
+        return trackSessionState;
+    }
+
+    /**
+     * Number of prepared statements each helper keeps for reuse within a transaction, 0 turns the cache off.
+     */
+    public TransactionHelperProviderOptions statementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be less than 0.");
+        }
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Tracks the connections handed out, by helpers and for work out of a transaction, until they are closed.
+     * Connections held longer than the threshold are reported to the listener once.
+     */
+    public TransactionHelperProviderOptions leakDetection(long threshold,
+                                                          TimeUnit unit,
+                                                          ConnectionLeakListener listener) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Leak threshold need to be greater than 0.");
+        }
+        if (null == listener) {
+            throw new IllegalArgumentException("Leak listener cannot be null value.");
+        }
+        this.leakThresholdNanos = unit.toNanos(threshold);
+        this.leakListener = listener;
+        return this;
+    }
+
+    public long getLeakThresholdNanos() {
+        return leakThresholdNanos;
+    }
+
+    public ConnectionLeakListener getLeakListener() {
+        return leakListener;
+    }
+
+    /**
+     * Share of the tracked connections whose acquisition stack is captured for the leak report, from 0 to 1.
+     */
+    public TransactionHelperProviderOptions leakStackSampleRate(double leakStackSampleRate) {
+        if (leakStackSampleRate < 0 || leakStackSampleRate > 1) {
+            throw new IllegalArgumentException("Leak stack sample rate need to be between 0 and 1.");
+        }
+        this.leakStackSampleRate = leakStackSampleRate;
+        return this;
+    }
+
+    public double getLeakStackSampleRate() {
+        return leakStackSampleRate;
+    }
+
+    /**
+     * Times connection acquisitions, and how long the helpers hold their connections, into the given metrics.
+     */
+    public TransactionHelperProviderOptions metrics(TransactionMetrics metrics) {
+        if (null == metrics) {
+            throw new IllegalArgumentException("Metrics cannot be null value.");
+        }
+        this.metrics = metrics;
+        return this;
+    }
+
+    public TransactionMetrics getMetrics() {
+        return metrics;
+    }
+
+    TransactionHelperProviderOptions copy() {
+        TransactionHelperProviderOptions copy = new TransactionHelperProviderOptions();
+        copy.trackSessionState = trackSessionState;
+        copy.statementCacheSize = statementCacheSize;
+        copy.leakThresholdNanos = leakThresholdNanos;
+        copy.leakListener = leakListener;
+        copy.leakStackSampleRate = leakStackSampleRate;
+        copy.metrics = metrics;
+        return copy;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Helpers of a global transaction, one for each database. A registry lives in the transaction context,
+ * services pointing at the same database share its helper and so one connection.
+ *
+ * A database is known by its group name when the service has one, otherwise by the identity of its
+ * <tt>DataSource</tt>.
+ */
+class TransactionHelperRegistry {
+
+    private ConcurrentMap<Object, TransactionHelper> helpers;
+
+    TransactionHelperRegistry() {
+        this.helpers = new ConcurrentHashMap<>();
+    }
+
+    static Object keyOf(DataSource dataSource, String databaseGroup) {
+        if (null != databaseGroup) {
+            return new GroupKey(databaseGroup);
+        }
+        return new DataSourceKey(dataSource);
+    }
+
+    TransactionHelper get(Object key) {
+        return helpers.get(key);
+    }
+
+    /**
+     * Registers the helper if the database has none yet and returns the existing one, otherwise null.
+     */
+    TransactionHelper putIfAbsent(Object key, TransactionHelper helper) {
+        return helpers.putIfAbsent(key, helper);
+    }
+
+    void remove(Object key, TransactionHelper helper) {
+        helpers.remove(key, helper);
+    }
+
+    private static final class GroupKey {
+
+        private final String name;
+
+        private GroupKey(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof GroupKey && name.equals(((GroupKey) o).name));
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    private static final class DataSourceKey {
+
+        private final DataSource dataSource;
+        private final int hash;
+
+        private DataSourceKey(DataSource dataSource) {
+            this.dataSource = dataSource;
+            this.hash = System.identityHashCode(dataSource);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof DataSourceKey && dataSource == ((DataSourceKey) o).dataSource);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
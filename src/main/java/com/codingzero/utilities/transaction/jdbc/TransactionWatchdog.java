@@ -0,0 +1,37 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One daemon thread which expires transactions at their deadline, looks for leaked connections and
+ * evicts idle pooled connections, created on first use.
+ */
+final class TransactionWatchdog {
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR = newExecutor();
+
+    private TransactionWatchdog() {
+
+    }
+
+    private static ScheduledThreadPoolExecutor newExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "transaction-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    static ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+        return EXECUTOR.schedule(task, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+    }
+
+    static ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long periodNanos) {
+        return EXECUTOR.scheduleAtFixedRate(task, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+}
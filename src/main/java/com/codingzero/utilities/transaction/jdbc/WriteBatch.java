@@ -0,0 +1,100 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes queued in a transaction, in the order they were queued. Consecutive writes of the same SQL form
+ * a group which runs as one JDBC batch, a write of another SQL starts the next group.
+ */
+class WriteBatch {
+
+    private List<Group> groups;
+    private volatile int size;
+
+    WriteBatch() {
+        this.groups = new ArrayList<>();
+        this.size = 0;
+    }
+
+    void add(String sql, Object[] parameters) {
+        Group last = groups.isEmpty() ? null : groups.get(groups.size() - 1);
+        if (null == last || !last.sql.equals(sql)) {
+            last = new Group(sql);
+            groups.add(last);
+        }
+        last.parametersList.add(parameters.clone());
+        size ++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return 0 == size;
+    }
+
+    void clear() {
+        groups.clear();
+        size = 0;
+    }
+
+    /**
+     * Runs the queued writes and clears the batch, whether they succeed or not.
+     */
+    void execute(Connection connection, StatementRelease statementRelease) throws SQLException {
+        try {
+            for (Group group: groups) {
+                execute(connection, statementRelease, group.sql, group.parametersList);
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    private void execute(Connection connection,
+                         StatementRelease statementRelease,
+                         String sql,
+                         List<Object[]> parametersList) throws SQLException {
+        PreparedStatement stmt = connection.prepareStatement(sql);
+        try {
+            for (Object[] parameters: parametersList) {
+                for (int i = 0; i < parameters.length; i ++) {
+                    stmt.setObject(i + 1, parameters[i]);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } finally {
+            if (!statementRelease.giveBack(stmt)) {
+                stmt.close();
+            }
+        }
+    }
+
+    /**
+     * Keeps a statement for reuse, returns false if it is not kept, then it is closed.
+     */
+    interface StatementRelease {
+
+        boolean giveBack(PreparedStatement statement) throws SQLException;
+
+    }
+
+    private static class Group {
+
+        private String sql;
+        private List<Object[]> parametersList;
+
+        Group(String sql) {
+            this.sql = sql;
+            this.parametersList = new ArrayList<>();
+        }
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.codingzero.utilities.transaction.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.codingzero.transaction.ConnectionAcquire")
+@Label("Connection Acquire")
+@Description("Getting a connection from the DataSource or pool.")
+@Category({"CodingZero", "Transaction"})
+@Enabled(false)
+@StackTrace(false)
+class ConnectionAcquireEvent extends Event {
+
+    @Label("Failed")
+    boolean failed;
+
+}
@@ -0,0 +1,19 @@
+package com.codingzero.utilities.transaction.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.codingzero.transaction.ConnectionHold")
+@Label("Connection Hold")
+@Description("A transaction helper holding its connection, from acquire to release.")
+@Category({"CodingZero", "Transaction"})
+@Enabled(false)
+@StackTrace(false)
+class ConnectionHoldEvent extends Event {
+
+}
@@ -0,0 +1,110 @@
+package com.codingzero.utilities.transaction.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * The only class besides the events which links to <tt>jdk.jfr</tt>, loaded once JFR is known to be there.
+ *
+ * Events are created only when their type is enabled in a running recording, otherwise a begin costs
+ * one check and returns null.
+ */
+final class JfrSupport {
+
+    private static final EventType PHASE = EventType.getEventType(TransactionPhaseEvent.class);
+    private static final EventType SERVICE_CALLBACK = EventType.getEventType(ServiceCallbackEvent.class);
+    private static final EventType CONNECTION_ACQUIRE = EventType.getEventType(ConnectionAcquireEvent.class);
+    private static final EventType CONNECTION_HOLD = EventType.getEventType(ConnectionHoldEvent.class);
+    private static final EventType NESTING = EventType.getEventType(TransactionNestingEvent.class);
+
+    private JfrSupport() {
+
+    }
+
+    static Object beginPhase() {
+        if (!PHASE.isEnabled()) {
+            return null;
+        }
+        TransactionPhaseEvent event = new TransactionPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endPhase(Object handle, String phase, boolean failed) {
+        TransactionPhaseEvent event = (TransactionPhaseEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    static Object beginServiceCallback() {
+        if (!SERVICE_CALLBACK.isEnabled()) {
+            return null;
+        }
+        ServiceCallbackEvent event = new ServiceCallbackEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endServiceCallback(Object handle, String phase, String service, boolean failed) {
+        ServiceCallbackEvent event = (ServiceCallbackEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.service = service;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    static Object beginConnectionAcquire() {
+        if (!CONNECTION_ACQUIRE.isEnabled()) {
+            return null;
+        }
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endConnectionAcquire(Object handle, boolean failed) {
+        ConnectionAcquireEvent event = (ConnectionAcquireEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    static Object beginConnectionHold() {
+        if (!CONNECTION_HOLD.isEnabled()) {
+            return null;
+        }
+        ConnectionHoldEvent event = new ConnectionHoldEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endConnectionHold(Object handle) {
+        ConnectionHoldEvent event = (ConnectionHoldEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.commit();
+        }
+    }
+
+    static void nesting(String operation, int joinedStarts, int savepointDepth) {
+        if (!NESTING.isEnabled()) {
+            return;
+        }
+        TransactionNestingEvent event = new TransactionNestingEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.joinedStarts = joinedStarts;
+            event.savepointDepth = savepointDepth;
+            event.commit();
+        }
+    }
+
+}
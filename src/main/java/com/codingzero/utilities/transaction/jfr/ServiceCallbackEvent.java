@@ -0,0 +1,28 @@
+package com.codingzero.utilities.transaction.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.codingzero.transaction.ServiceCallback")
+@Label("Service Callback")
+@Description("A callback of one registered service in a transaction phase.")
+@Category({"CodingZero", "Transaction"})
+@Enabled(false)
+@StackTrace(false)
+class ServiceCallbackEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Service")
+    String service;
+
+    @Label("Failed")
+    boolean failed;
+
+}
@@ -0,0 +1,84 @@
+package com.codingzero.utilities.transaction.jfr;
+
+/**
+ * Emits the JDK Flight Recorder events of the transaction lifecycle. The events are disabled by default,
+ * enable the ones under the "CodingZero / Transaction" category in a JFR settings file or recording.
+ *
+ * On a JVM without <tt>jdk.jfr</tt> every call is a no-op. A begin returns a handle, null when the event
+ * is not recorded, which is passed to the matching end.
+ */
+public final class TransactionEvents {
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private TransactionEvents() {
+
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, TransactionEvents.class.getClassLoader());
+            Class.forName(JfrSupport.class.getName(), true, TransactionEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns false if the JVM has no Flight Recorder API.
+     */
+    public static boolean isSupported() {
+        return AVAILABLE;
+    }
+
+    public static Object beginPhase() {
+        return AVAILABLE ? JfrSupport.beginPhase() : null;
+    }
+
+    public static void endPhase(Object handle, String phase, boolean failed) {
+        if (null != handle) {
+            JfrSupport.endPhase(handle, phase, failed);
+        }
+    }
+
+    public static Object beginServiceCallback() {
+        return AVAILABLE ? JfrSupport.beginServiceCallback() : null;
+    }
+
+    public static void endServiceCallback(Object handle, String phase, String service, boolean failed) {
+        if (null != handle) {
+            JfrSupport.endServiceCallback(handle, phase, service, failed);
+        }
+    }
+
+    public static Object beginConnectionAcquire() {
+        return AVAILABLE ? JfrSupport.beginConnectionAcquire() : null;
+    }
+
+    public static void endConnectionAcquire(Object handle, boolean failed) {
+        if (null != handle) {
+            JfrSupport.endConnectionAcquire(handle, failed);
+        }
+    }
+
+    public static Object beginConnectionHold() {
+        return AVAILABLE ? JfrSupport.beginConnectionHold() : null;
+    }
+
+    public static void endConnectionHold(Object handle) {
+        if (null != handle) {
+            JfrSupport.endConnectionHold(handle);
+        }
+    }
+
+    /**
+     * A start, commit or rollback on a transaction helper, with its depth after it.
+     */
+    public static void nesting(String operation, int joinedStarts, int savepointDepth) {
+        if (AVAILABLE) {
+            JfrSupport.nesting(operation, joinedStarts, savepointDepth);
+        }
+    }
+
+}
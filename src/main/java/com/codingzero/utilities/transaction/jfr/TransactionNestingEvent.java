@@ -0,0 +1,29 @@
+package com.codingzero.utilities.transaction.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.codingzero.transaction.TransactionNesting")
+@Label("Transaction Nesting")
+@Description("A start, commit or rollback on a transaction helper, with its nesting depth after it.")
+@Category({"CodingZero", "Transaction"})
+@Enabled(false)
+@StackTrace(false)
+class TransactionNestingEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Joined Starts")
+    @Description("Starts counted by the helper, the services which joined its transaction.")
+    int joinedStarts;
+
+    @Label("Savepoint Depth")
+    int savepointDepth;
+
+}
@@ -0,0 +1,25 @@
+package com.codingzero.utilities.transaction.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.codingzero.transaction.Phase")
+@Label("Transaction Phase")
+@Description("A start, commit or rollback of a transaction manager, all services included.")
+@Category({"CodingZero", "Transaction"})
+@Enabled(false)
+@StackTrace(false)
+class TransactionPhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Failed")
+    boolean failed;
+
+}
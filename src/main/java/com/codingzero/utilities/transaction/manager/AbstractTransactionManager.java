@@ -0,0 +1,661 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.PreparableTransactionalService;
+import com.codingzero.utilities.transaction.TransactionCompletionException;
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionManager;
+import com.codingzero.utilities.transaction.TransactionScope;
+import com.codingzero.utilities.transaction.TransactionalService;
+import com.codingzero.utilities.transaction.jfr.TransactionEvents;
+import com.codingzero.utilities.transaction.metrics.TransactionMetrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the registered services and drives them through a transaction. Subclasses decide
+ * where the <tt>TransactionContext</tt> of the running transaction lives.
+ *
+ * Services are kept in a copy-on-write map, so registration is expected to be rare
+ * and transactions never wait on it.
+ *
+ * On commit, services implementing <tt>PreparableTransactionalService</tt> are prepared first. If one
+ * votes no or fails, every service rolls back and commit() throws a <tt>TransactionCompletionException</tt>.
+ *
+ * A transaction started with startReadOnly() is marked read-only in its context until it completes.
+ *
+ * A transaction started with a timeout, or the default one, carries its deadline in the context. Services
+ * may enforce it while it runs, and commit() rolls back instead once it passed.
+ *
+ * Phases and the callbacks of each service are timed into the <tt>TransactionMetrics</tt>, if one is set,
+ * and emitted as JFR events when those are enabled, see <tt>TransactionEvents</tt>.
+ *
+ * commitAsync() and rollbackAsync() detach the transaction from the caller and complete it on the async
+ * executor, so the caller can start the next transaction right away. That needs every service to keep its
+ * state in the context, e.g. <tt>JDBCTransactionalService</tt> in shared mode, and a manager which can hand
+ * the context over, otherwise the transaction completes on the caller.
+ */
+public abstract class AbstractTransactionManager implements TransactionManager {
+
+    private static final String ACTIVE = "TRANSACTION_ACTIVE";
+    private static final ServiceCallback START = TransactionalService::onStartTransaction;
+    private static final ServiceCallback COMMIT = TransactionalService::onCommitTransaction;
+    private static final ServiceCallback ROLLBACK = TransactionalService::onRollbackTransaction;
+    private static final ServiceCallback PREPARE = (service, context) -> {
+        if (!((PreparableTransactionalService) service).onPrepareTransaction(context)) {
+            throw new IllegalStateException("Service voted to roll back the transaction.");
+        }
+    };
+
+    private volatile Map<String, TransactionalService> services;
+    private volatile Map<String, TransactionalService> preparableServices;
+    private Executor completionExecutor;
+    private Executor startExecutor;
+    private long startTimeoutNanos;
+    private Executor asyncExecutor;
+    private long defaultTimeoutNanos;
+    private TransactionMetrics metrics;
+
+    protected AbstractTransactionManager() {
+        this.services = Collections.emptyMap();
+        this.preparableServices = Collections.emptyMap();
+        this.completionExecutor = null;
+        this.startExecutor = null;
+        this.startTimeoutNanos = 0;
+        this.asyncExecutor = null;
+        this.defaultTimeoutNanos = 0;
+        this.metrics = TransactionMetrics.NONE;
+    }
+
+    /**
+     * Returns the context of the running transaction, creates one if there isn't.
+     */
+    protected abstract TransactionContext getContext();
+
+    /**
+     * Returns the context of the running transaction, null if there isn't. Unlike <tt>getContext()</tt>
+     * it never creates one.
+     */
+    protected abstract TransactionContext peekContext();
+
+    /**
+     * Discards the context of the running transaction.
+     */
+    protected abstract void clearContext();
+
+    /**
+     * Returns the context passed to <tt>TransactionalService.onRegister()</tt>.
+     */
+    protected abstract TransactionContext getRegistrationContext();
+
+    /**
+     * Takes the running transaction away from the caller and returns the context it completes in,
+     * or null if it cannot leave the caller.
+     */
+    protected TransactionContext detachContext() {
+        return null;
+    }
+
+    protected Collection<TransactionalService> getServices() {
+        return services.values();
+    }
+
+    /**
+     * Fans commit and rollback callbacks out to the given executor, null calls them one after another.
+     */
+    void setCompletionExecutor(Executor completionExecutor) {
+        this.completionExecutor = completionExecutor;
+    }
+
+    protected Executor getCompletionExecutor() {
+        return completionExecutor;
+    }
+
+    /**
+     * Calls onStartTransaction() of the services in parallel on the given executor and waits at most
+     * the given time for them, null calls them one after another.
+     */
+    void setStartExecutor(Executor startExecutor, long timeout, TimeUnit unit) {
+        this.startExecutor = startExecutor;
+        this.startTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    protected Executor getStartExecutor() {
+        return startExecutor;
+    }
+
+    /**
+     * Completes commitAsync() and rollbackAsync() on the given executor.
+     */
+    void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    protected Executor getAsyncExecutor() {
+        return null == asyncExecutor ? DefaultAsyncExecutor.INSTANCE : asyncExecutor;
+    }
+
+    /**
+     * Timeout of the transactions started without one, 0 for none.
+     */
+    void setDefaultTimeout(long timeout, TimeUnit unit) {
+        this.defaultTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    protected TransactionMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void register(String name, TransactionalService service) {
+        checkForInvalidServiceNameFormat(name);
+        synchronized (this) {
+            Map<String, TransactionalService> newServices = new LinkedHashMap<>(services);
+            newServices.put(name.toLowerCase(), service);
+            setServices(newServices);
+        }
+        service.onRegister(name, getRegistrationContext());
+    }
+
+    private void setServices(Map<String, TransactionalService> services) {
+        Map<String, TransactionalService> preparableServices = new LinkedHashMap<>();
+        for (Map.Entry<String, TransactionalService> entry: services.entrySet()) {
+            if (entry.getValue() instanceof PreparableTransactionalService) {
+                preparableServices.put(entry.getKey(), entry.getValue());
+            }
+        }
+        this.preparableServices = preparableServices;
+        this.services = services;
+    }
+
+    private void checkForInvalidServiceNameFormat(String name) {
+        if (null == name || name.trim().length() == 0) {
+            throw new IllegalArgumentException("Service name cannot be null value or empty string.");
+        }
+        if (name.length() <= 2 || name.length() > 99) {
+            throw new IllegalArgumentException(
+                    "Service name need to be greater than 3 characters and less than 100 characters. ");
+        }
+    }
+
+    @Override
+    public TransactionalService deregister(String name) {
+        synchronized (this) {
+            Map<String, TransactionalService> newServices = new LinkedHashMap<>(services);
+            TransactionalService service = newServices.remove(name.toLowerCase());
+            setServices(newServices);
+            return service;
+        }
+    }
+
+    @Override
+    public void start() {
+        start(false, defaultTimeoutNanos);
+    }
+
+    @Override
+    public void start(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout need to be greater than 0.");
+        }
+        start(false, unit.toNanos(timeout));
+    }
+
+    @Override
+    public void startReadOnly() {
+        start(true, defaultTimeoutNanos);
+    }
+
+    private void start(boolean readOnly, long timeoutNanos) {
+        long begin = System.nanoTime();
+        Object event = TransactionEvents.beginPhase();
+        boolean failed = true;
+        try {
+            start(getContext(), readOnly, timeoutNanos);
+            failed = false;
+        } finally {
+            metrics.recordTransactionPhase("Start", System.nanoTime() - begin, failed);
+            TransactionEvents.endPhase(event, "Start", failed);
+        }
+    }
+
+    private void start(TransactionContext context, boolean readOnly, long timeoutNanos) {
+        if (readOnly) {
+            context.setProperty(TransactionContext.READ_ONLY, Boolean.TRUE);
+        } else {
+            context.removeProperty(TransactionContext.READ_ONLY);
+        }
+        if (timeoutNanos > 0) {
+            context.setProperty(TransactionContext.DEADLINE, System.nanoTime() + timeoutNanos);
+        } else {
+            context.removeProperty(TransactionContext.DEADLINE);
+        }
+        if (null == getStartExecutor()) {
+            for (Map.Entry<String, TransactionalService> entry: services.entrySet()) {
+                callService("Start", START, entry.getKey(), entry.getValue(), context);
+            }
+        } else {
+            startInParallel(context);
+        }
+        context.setProperty(ACTIVE, Boolean.TRUE);
+    }
+
+    /**
+     * A transaction is active from a successful start until its commit or rollback ended it.
+     */
+    @Override
+    public boolean isTransactionActive() {
+        TransactionContext context = peekContext();
+        return null != context && Boolean.TRUE.equals(context.getProperty(ACTIVE));
+    }
+
+    /**
+     * Starts every service on the start executor, the caller only waits for them, so the deadline
+     * holds for each of them.
+     *
+     * If a service fails or does not start before the deadline, the services already started are rolled
+     * back right away and the late ones as soon as they start, then a <tt>TransactionCompletionException</tt>
+     * is thrown. The transaction is over by then, there is no need to call rollback().
+     */
+    private void startInParallel(TransactionContext context) {
+        long deadline = System.nanoTime() + startTimeoutNanos;
+        Map<String, TransactionalService> services = this.services;
+        List<String> names = new ArrayList<>(services.size());
+        List<TransactionalService> started = new ArrayList<>(services.size());
+        List<CompletableFuture<Void>> futures =
+                call("Start", START, context, getStartExecutor(), services, names, false);
+        List<String> completed = new ArrayList<>(names.size());
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (int i = 0; i < futures.size(); i ++) {
+            TransactionalService service = services.get(names.get(i));
+            try {
+                await(futures.get(i), deadline);
+                completed.add(names.get(i));
+                started.add(service);
+            } catch (ExecutionException e) {
+                failures.put(names.get(i), e.getCause());
+            } catch (TimeoutException | InterruptedException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                failures.put(names.get(i), e);
+                futures.get(i).thenRun(() -> rollbackQuietly(service, context));
+            }
+        }
+        if (!failures.isEmpty()) {
+            for (TransactionalService service: started) {
+                rollbackQuietly(service, context);
+            }
+            endTransaction(context, false);
+            throw new TransactionCompletionException("Start", completed, failures);
+        }
+    }
+
+    private void await(Future<Void> future, long deadline)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        if (future.isDone()) {
+            future.get();
+            return;
+        }
+        future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private void rollbackQuietly(TransactionalService service, TransactionContext context) {
+        try {
+            TransactionScope.run(context, () -> service.onRollbackTransaction(context));
+        } catch (RuntimeException e) {
+            //nothing, the transaction failed to start already
+        }
+    }
+
+    @Override
+    public void commit() {
+        commit(getContext(), false);
+    }
+
+    /**
+     * A detached transaction is no longer the running one of the caller, its context is not cleared at the end.
+     */
+    private void commit(TransactionContext context, boolean detached) {
+        long begin = System.nanoTime();
+        Object event = TransactionEvents.beginPhase();
+        boolean failed = true;
+        try {
+            prepareAndComplete(context, detached);
+            failed = false;
+        } finally {
+            metrics.recordTransactionPhase("Commit", System.nanoTime() - begin, failed);
+            TransactionEvents.endPhase(event, "Commit", failed);
+        }
+    }
+
+    private void prepareAndComplete(TransactionContext context, boolean detached) {
+        if (context.getRemainingNanos() <= 0) {
+            rollbackExpired(context, detached);
+        }
+        prepare(context, detached);
+        complete("Commit", COMMIT, context, detached);
+    }
+
+    private void rollbackExpired(TransactionContext context, boolean detached) {
+        IllegalStateException failure =
+                new IllegalStateException("Transaction deadline passed, it is rolled back instead of committed.");
+        try {
+            completeRollback(context, detached);
+        } catch (RuntimeException rollbackFailure) {
+            failure.addSuppressed(rollbackFailure);
+        }
+        throw failure;
+    }
+
+    private void prepare(TransactionContext context, boolean detached) {
+        Map<String, TransactionalService> preparableServices = this.preparableServices;
+        if (preparableServices.isEmpty()) {
+            return;
+        }
+        try {
+            if (null == getCompletionExecutor()) {
+                prepareInSequence(preparableServices, context);
+            } else {
+                callInParallel("Prepare", PREPARE, context, preparableServices);
+            }
+        } catch (RuntimeException e) {
+            try {
+                completeRollback(context, detached);
+            } catch (RuntimeException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        }
+    }
+
+    private void prepareInSequence(Map<String, TransactionalService> preparableServices, TransactionContext context) {
+        List<String> completed = new ArrayList<>(preparableServices.size());
+        for (Map.Entry<String, TransactionalService> entry: preparableServices.entrySet()) {
+            try {
+                callService("Prepare", PREPARE, entry.getKey(), entry.getValue(), context);
+                completed.add(entry.getKey());
+            } catch (RuntimeException e) {
+                throw new TransactionCompletionException(
+                        "Prepare", completed, Collections.singletonMap(entry.getKey(), e));
+            }
+        }
+    }
+
+    @Override
+    public void rollback() {
+        rollback(getContext(), false);
+    }
+
+    private void rollback(TransactionContext context, boolean detached) {
+        long begin = System.nanoTime();
+        Object event = TransactionEvents.beginPhase();
+        boolean failed = true;
+        try {
+            completeRollback(context, detached);
+            failed = false;
+        } finally {
+            metrics.recordTransactionPhase("Rollback", System.nanoTime() - begin, failed);
+            TransactionEvents.endPhase(event, "Rollback", failed);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> commitAsync() {
+        TransactionContext context = detach();
+        if (null == context) {
+            return TransactionManager.super.commitAsync();
+        }
+        return completeAsync(context, detached -> commit(detached, true));
+    }
+
+    @Override
+    public CompletableFuture<Void> rollbackAsync() {
+        TransactionContext context = detach();
+        if (null == context) {
+            return TransactionManager.super.rollbackAsync();
+        }
+        return completeAsync(context, detached -> rollback(detached, true));
+    }
+
+    /**
+     * A transaction leaves the caller only if every service keeps its state in the context, otherwise
+     * the next transaction of the caller would share the state of the detached one.
+     */
+    private TransactionContext detach() {
+        for (TransactionalService service: services.values()) {
+            if (!service.keepsStateInContext()) {
+                return null;
+            }
+        }
+        return detachContext();
+    }
+
+    /**
+     * Completes the detached transaction in its scope on the async executor.
+     */
+    private CompletableFuture<Void> completeAsync(TransactionContext context,
+                                                  Consumer<TransactionContext> completion) {
+        try {
+            return CompletableFuture.runAsync(
+                    () -> TransactionScope.run(context, () -> completion.accept(context)), getAsyncExecutor());
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private void complete(String phase, ServiceCallback callback, TransactionContext context, boolean detached) {
+        if (null == getCompletionExecutor()) {
+            completeInSequence(phase, callback, context);
+        } else {
+            callInParallel(phase, callback, context, services);
+        }
+        endTransaction(context, detached);
+    }
+
+    /**
+     * Stops at the first service which fails. Its failure is thrown as is when no service completed before
+     * it, otherwise a <tt>TransactionCompletionException</tt> reports the ones which did.
+     */
+    private void completeInSequence(String phase, ServiceCallback callback, TransactionContext context) {
+        List<String> completed = new ArrayList<>(services.size());
+        for (Map.Entry<String, TransactionalService> entry: services.entrySet()) {
+            try {
+                callService(phase, callback, entry.getKey(), entry.getValue(), context);
+                completed.add(entry.getKey());
+            } catch (RuntimeException e) {
+                if (completed.isEmpty()) {
+                    throw e;
+                }
+                throw new TransactionCompletionException(
+                        phase, completed, Collections.singletonMap(entry.getKey(), e));
+            }
+        }
+    }
+
+    /**
+     * Every service is rolled back even when some of them fail, and the transaction ends either way,
+     * there is nothing left to complete once a rollback failed.
+     */
+    private void completeRollback(TransactionContext context, boolean detached) {
+        try {
+            if (null == getCompletionExecutor()) {
+                rollbackInSequence(context);
+            } else {
+                callInParallel("Rollback", ROLLBACK, context, services);
+            }
+        } finally {
+            endTransaction(context, detached);
+        }
+    }
+
+    private void rollbackInSequence(TransactionContext context) {
+        RuntimeException failure = null;
+        for (Map.Entry<String, TransactionalService> entry: services.entrySet()) {
+            try {
+                callService("Rollback", ROLLBACK, entry.getKey(), entry.getValue(), context);
+            } catch (RuntimeException e) {
+                if (null == failure) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+    private void endTransaction(TransactionContext context, boolean detached) {
+        context.removeProperty(ACTIVE);
+        context.removeProperty(TransactionContext.READ_ONLY);
+        context.removeProperty(TransactionContext.DEADLINE);
+        if (!detached) {
+            clearContext();
+        }
+    }
+
+    /**
+     * Calls every service but the last one on the completion executor and the last one on the caller,
+     * then waits for all of them.
+     */
+    private void callInParallel(String phase,
+                                ServiceCallback callback,
+                                TransactionContext context,
+                                Map<String, TransactionalService> services) {
+        List<String> names = new ArrayList<>(services.size());
+        List<CompletableFuture<Void>> futures =
+                call(phase, callback, context, getCompletionExecutor(), services, names, true);
+        List<String> completed = new ArrayList<>(names.size());
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (int i = 0; i < futures.size(); i ++) {
+            try {
+                futures.get(i).join();
+                completed.add(names.get(i));
+            } catch (CompletionException e) {
+                failures.put(names.get(i), null == e.getCause() ? e : e.getCause());
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new TransactionCompletionException(phase, completed, failures);
+        }
+    }
+
+    /**
+     * Calls the services on the executor, the last one on the caller if asked to, with the context bound
+     * as their <tt>TransactionScope</tt>. Names of the services are added to the given list in the same order.
+     */
+    private List<CompletableFuture<Void>> call(String phase,
+                                               ServiceCallback callback,
+                                               TransactionContext context,
+                                               Executor executor,
+                                               Map<String, TransactionalService> services,
+                                               List<String> names,
+                                               boolean lastOnCaller) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(services.size());
+        int remaining = services.size();
+        for (Map.Entry<String, TransactionalService> entry: services.entrySet()) {
+            String name = entry.getKey();
+            TransactionalService service = entry.getValue();
+            names.add(name);
+            remaining --;
+            if (remaining > 0 || !lastOnCaller) {
+                futures.add(CompletableFuture.runAsync(() -> TransactionScope.run(context,
+                        () -> callService(phase, callback, name, service, context)), executor));
+            } else {
+                futures.add(callOnCaller(phase, callback, name, service, context));
+            }
+        }
+        return futures;
+    }
+
+    private CompletableFuture<Void> callOnCaller(String phase,
+                                                 ServiceCallback callback,
+                                                 String name,
+                                                 TransactionalService service,
+                                                 TransactionContext context) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            callService(phase, callback, name, service, context);
+            future.complete(null);
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void callService(String phase,
+                             ServiceCallback callback,
+                             String name,
+                             TransactionalService service,
+                             TransactionContext context) {
+        long begin = System.nanoTime();
+        Object event = TransactionEvents.beginServiceCallback();
+        boolean failed = true;
+        try {
+            callback.call(service, context);
+            failed = false;
+        } finally {
+            metrics.recordServiceCall(phase, name, System.nanoTime() - begin, failed);
+            TransactionEvents.endServiceCallback(event, phase, name, failed);
+        }
+    }
+
+    /**
+     * Daemon threads for async completion, one per processor, idle threads end after a minute. Once the
+     * queue is full the caller runs the task itself, which holds back callers instead of piling up threads.
+     */
+    private static class DefaultAsyncExecutor {
+
+        private static final int THREADS = Runtime.getRuntime().availableProcessors();
+        private static final int QUEUE_CAPACITY = 256;
+        private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+        private static final ExecutorService INSTANCE = newExecutor();
+
+        private static ExecutorService newExecutor() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS,
+                    60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+                    task -> {
+                        Thread thread = new Thread(task, "transaction-async-" + THREAD_COUNT.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+    }
+
+    private interface ServiceCallback {
+
+        void call(TransactionalService service, TransactionContext context);
+
+    }
+
+}
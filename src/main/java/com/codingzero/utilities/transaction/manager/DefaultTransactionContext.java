@@ -0,0 +1,59 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A context can be read by services on any thread, properties are kept in a concurrent map.
+ * Setting a null property removes it.
+ */
+class DefaultTransactionContext implements TransactionContext {
+
+    private Map<String, Object> properties;
+
+    public DefaultTransactionContext() {
+        this.properties = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void setProperty(String name, Object property) {
+        if (null == property) {
+            properties.remove(name);
+            return;
+        }
+        properties.put(name, property);
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return properties.get(name);
+    }
+
+    @Override
+    public Object removeProperty(String name) {
+        return properties.remove(name);
+    }
+
+    @Override
+    public Object setPropertyIfAbsent(String name, Object property) {
+        return properties.putIfAbsent(name, property);
+    }
+
+    /**
+     * Moves the properties of the given context to a new one and returns it,
+     * or null if the given context is not a default one.
+     */
+    static TransactionContext moveProperties(TransactionContext context) {
+        if (!(context instanceof DefaultTransactionContext)) {
+            return null;
+        }
+        DefaultTransactionContext source = (DefaultTransactionContext) context;
+        DefaultTransactionContext target = new DefaultTransactionContext();
+        target.properties.putAll(source.properties);
+        source.properties.clear();
+        return target;
+    }
+
+}
@@ -7,6 +7,27 @@ public class DefaultTransactionManagerBuilder extends TransactionManagerBuilder
 
     @Override
     public TransactionManager build() {
+        AbstractTransactionManager manager = newManager();
+        manager.setCompletionExecutor(getParallelCommitExecutor());
+        manager.setStartExecutor(
+                getConcurrentStartExecutor(), getConcurrentStartTimeout(), getConcurrentStartTimeUnit());
+        if (null != getAsyncExecutor()) {
+            manager.setAsyncExecutor(getAsyncExecutor());
+        }
+        manager.setDefaultTimeout(getDefaultTimeout(), getDefaultTimeUnit());
+        if (null != getMetrics()) {
+            manager.setMetrics(getMetrics());
+        }
+        return manager;
+    }
+
+    private AbstractTransactionManager newManager() {
+        if (isScoped()) {
+            return new ScopedTransactionManager();
+        }
+        if (isThreadBound()) {
+            return new ThreadBoundTransactionManager();
+        }
         return new TransactionManagerImpl();
     }
 
@@ -0,0 +1,227 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs small units of work submitted by many threads together in one transaction of the given manager,
+ * so they share one connection and one commit. The future of each unit completes after that commit.
+ *
+ * If a unit of the batch fails, the batch is rolled back and each unit runs again in a transaction of
+ * its own, so a bad unit fails alone. Units can therefore run twice and should only change state through
+ * the services of the manager. If the commit fails, some services may have committed already, so the
+ * rest are rolled back and every unit of the batch fails with the commit failure instead of running again.
+ *
+ * The manager is used by the worker thread of the executor only and should not be shared,
+ * a <tt>ScopedTransactionManager</tt> gets a scope for each transaction.
+ */
+public class GroupCommitExecutor implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private TransactionManager manager;
+    private GroupCommitOptions options;
+    private BlockingQueue<Unit<?>> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    public GroupCommitExecutor(TransactionManager manager) {
+        this(manager, GroupCommitOptions.create());
+    }
+
+    public GroupCommitExecutor(TransactionManager manager, GroupCommitOptions options) {
+        this.manager = manager;
+        this.options = options.copy();
+        this.queue = new LinkedBlockingQueue<>(this.options.getMaxQueueSize());
+        this.running = true;
+        this.worker = new Thread(this::work, "transaction-group-commit-" + THREAD_COUNT.incrementAndGet());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public CompletableFuture<Void> submit(Runnable unit) {
+        return submit(() -> {
+            unit.run();
+            return null;
+        });
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> unit) {
+        Unit<T> queued = new Unit<>(unit);
+        if (!running) {
+            queued.fail(new RejectedExecutionException("Group commit executor is closed."));
+        } else if (!queue.offer(queued)) {
+            queued.fail(new RejectedExecutionException("Group commit queue is full."));
+        } else if (!running && queue.remove(queued)) {
+            queued.fail(new RejectedExecutionException("Group commit executor is closed."));
+        }
+        return queued.getFuture();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Runs the units already submitted, then stops the worker. Units which reach the queue after the worker
+     * stopped are failed with a <tt>RejectedExecutionException</tt>. An interrupted caller stops waiting
+     * for the worker, which still runs the submitted units.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        List<Unit<?>> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        for (Unit<?> unit: rejected) {
+            unit.fail(new RejectedExecutionException("Group commit executor is closed."));
+        }
+    }
+
+    private void work() {
+        List<Unit<?>> batch = new ArrayList<>(options.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                if (collect(batch)) {
+                    runInTransaction(() -> runBatch(batch));
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException | Error e) {
+                for (Unit<?> unit: batch) {
+                    unit.fail(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Waits for a unit, then for more to join it until the batch is full or the wait is over.
+     */
+    private boolean collect(List<Unit<?>> batch) throws InterruptedException {
+        Unit<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (null == first) {
+            return false;
+        }
+        batch.add(first);
+        int maxBatchSize = options.getMaxBatchSize();
+        long deadline = System.nanoTime() + options.getMaxWaitNanos();
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Unit<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (null == next) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+        return true;
+    }
+
+    private void runInTransaction(Runnable transaction) {
+        if (manager instanceof ScopedTransactionManager) {
+            ((ScopedTransactionManager) manager).runInScope(transaction);
+        } else {
+            transaction.run();
+        }
+    }
+
+    private void runBatch(List<Unit<?>> batch) {
+        if (batch.size() == 1) {
+            runAlone(batch.get(0));
+            return;
+        }
+        boolean committing = false;
+        try {
+            manager.start();
+            for (Unit<?> unit: batch) {
+                unit.run();
+            }
+            committing = true;
+            manager.commit();
+        } catch (RuntimeException | Error e) {
+            rollbackQuietly();
+            for (Unit<?> unit: batch) {
+                if (committing) {
+                    unit.fail(e);
+                } else {
+                    runInTransaction(() -> runAlone(unit));
+                }
+            }
+            return;
+        }
+        for (Unit<?> unit: batch) {
+            unit.complete();
+        }
+    }
+
+    private void runAlone(Unit<?> unit) {
+        try {
+            manager.start();
+            unit.run();
+            manager.commit();
+            unit.complete();
+        } catch (RuntimeException | Error e) {
+            rollbackQuietly();
+            unit.fail(e);
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            manager.rollback();
+        } catch (RuntimeException e) {
+            //nothing, the unit reports the failure and services which already ended have nothing to roll back
+        }
+    }
+
+    private static class Unit<T> {
+
+        private Supplier<T> work;
+        private CompletableFuture<T> future;
+        private T result;
+
+        public Unit(Supplier<T> work) {
+            this.work = work;
+            this.future = new CompletableFuture<>();
+            this.result = null;
+        }
+
+        public CompletableFuture<T> getFuture() {
+            return future;
+        }
+
+        public void run() {
+            result = work.get();
+        }
+
+        public void complete() {
+            future.complete(result);
+        }
+
+        public void fail(Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.codingzero.utilities.transaction.manager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options of a <tt>GroupCommitExecutor</tt>, read once when the executor is constructed.
+ */
+public class GroupCommitOptions {
+
+    private int maxBatchSize;
+    private long maxWaitNanos;
+    private int maxQueueSize;
+
+    protected GroupCommitOptions() {
+        this.maxBatchSize = 64;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        this.maxQueueSize = 10000;
+    }
+
+    public static GroupCommitOptions create() {
+        return new GroupCommitOptions();
+    }
+
+    /**
+     * Maximum number of units of work committed together.
+     */
+    public GroupCommitOptions maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size need to be greater than 0.");
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * How long the first unit of a batch waits for more to join, before the batch runs anyway.
+     */
+    public GroupCommitOptions maxWait(long time, TimeUnit unit) {
+        this.maxWaitNanos = unit.toNanos(time);
+        return this;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    /**
+     * Maximum number of units waiting, more are rejected.
+     */
+    public GroupCommitOptions maxQueueSize(int maxQueueSize) {
+        if (maxQueueSize <= 0) {
+            throw new IllegalArgumentException("Max queue size need to be greater than 0.");
+        }
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    GroupCommitOptions copy() {
+        GroupCommitOptions copy = new GroupCommitOptions();
+        copy.maxBatchSize = maxBatchSize;
+        copy.maxWaitNanos = maxWaitNanos;
+        copy.maxQueueSize = maxQueueSize;
+        return copy;
+    }
+
+}
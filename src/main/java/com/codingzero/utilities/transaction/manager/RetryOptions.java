@@ -0,0 +1,83 @@
+package com.codingzero.utilities.transaction.manager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options of a <tt>RetryingTransactionExecutor</tt>, read once when the executor is constructed.
+ */
+public class RetryOptions {
+
+    private int maxAttempts;
+    private long initialBackoffNanos;
+    private long maxBackoffNanos;
+    private long timeBudgetNanos;
+
+    protected RetryOptions() {
+        this.maxAttempts = 5;
+        this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        this.maxBackoffNanos = TimeUnit.SECONDS.toNanos(1);
+        this.timeBudgetNanos = TimeUnit.SECONDS.toNanos(10);
+    }
+
+    public static RetryOptions create() {
+        return new RetryOptions();
+    }
+
+    /**
+     * Maximum number of times a unit of work runs, the first run included.
+     */
+    public RetryOptions maxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts need to be greater than 0.");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * The backoff doubles on each retry from the initial one up to the max one,
+     * the actual wait is picked at random below it.
+     */
+    public RetryOptions backoff(long initial, long max, TimeUnit unit) {
+        if (initial < 0 || max < initial) {
+            throw new IllegalArgumentException("Backoff need to be positive and initial not greater than max.");
+        }
+        this.initialBackoffNanos = unit.toNanos(initial);
+        this.maxBackoffNanos = unit.toNanos(max);
+        return this;
+    }
+
+    public long getInitialBackoffNanos() {
+        return initialBackoffNanos;
+    }
+
+    public long getMaxBackoffNanos() {
+        return maxBackoffNanos;
+    }
+
+    /**
+     * Total time for all attempts, no retry starts after it.
+     */
+    public RetryOptions timeBudget(long time, TimeUnit unit) {
+        this.timeBudgetNanos = unit.toNanos(time);
+        return this;
+    }
+
+    public long getTimeBudgetNanos() {
+        return timeBudgetNanos;
+    }
+
+    RetryOptions copy() {
+        RetryOptions copy = new RetryOptions();
+        copy.maxAttempts = maxAttempts;
+        copy.initialBackoffNanos = initialBackoffNanos;
+        copy.maxBackoffNanos = maxBackoffNanos;
+        copy.timeBudgetNanos = timeBudgetNanos;
+        return copy;
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionCompletionException;
+import com.codingzero.utilities.transaction.TransactionManager;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in a transaction of the given manager, and runs it again in a new transaction
+ * when it fails for a reason worth a retry, like a deadlock or a lock wait timeout.
+ *
+ * Retries wait a random time below an exponentially growing backoff and stop at the max attempts or
+ * when the time budget is spent, then the last failure is thrown. The unit of work can run several
+ * times and should only change state through the services of the manager.
+ *
+ * A failed commit is rolled back and retried like the work, unless it is a <tt>TransactionCompletionException</tt>
+ * showing that some services committed already, running the work again would then apply it twice there.
+ */
+public class RetryingTransactionExecutor {
+
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
+
+    private TransactionManager manager;
+    private RetryOptions options;
+    private LongAdder executions;
+    private LongAdder retries;
+    private LongAdder exhausted;
+    private LongAdder failures;
+
+    public RetryingTransactionExecutor(TransactionManager manager) {
+        this(manager, RetryOptions.create());
+    }
+
+    public RetryingTransactionExecutor(TransactionManager manager, RetryOptions options) {
+        this.manager = manager;
+        this.options = options.copy();
+        this.executions = new LongAdder();
+        this.retries = new LongAdder();
+        this.exhausted = new LongAdder();
+        this.failures = new LongAdder();
+    }
+
+    public void execute(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        executions.increment();
+        long deadline = System.nanoTime() + options.getTimeBudgetNanos();
+        for (int attempt = 1; ; attempt ++) {
+            try {
+                manager.start();
+                try {
+                    T result = work.get();
+                    manager.commit();
+                    return result;
+                } catch (RuntimeException | Error e) {
+                    rollbackAfter(e);
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                if (isPartlyCommitted(e) || !isRetriable(e)) {
+                    failures.increment();
+                    throw e;
+                }
+                long backoff = backoff(attempt);
+                if (attempt >= options.getMaxAttempts() || System.nanoTime() + backoff - deadline > 0) {
+                    exhausted.increment();
+                    failures.increment();
+                    throw e;
+                }
+                if (!sleep(backoff)) {
+                    failures.increment();
+                    throw e;
+                }
+                retries.increment();
+            }
+        }
+    }
+
+    /**
+     * Rolls back what is left of the transaction, a failed commit does not end it for every manager.
+     */
+    private void rollbackAfter(Throwable failure) {
+        try {
+            manager.rollback();
+        } catch (RuntimeException rollbackFailure) {
+            failure.addSuppressed(rollbackFailure);
+        }
+    }
+
+    /**
+     * A failure past the prepare phase with completed services means some of them committed.
+     */
+    private boolean isPartlyCommitted(RuntimeException failure) {
+        if (!(failure instanceof TransactionCompletionException)) {
+            return false;
+        }
+        TransactionCompletionException completionFailure = (TransactionCompletionException) failure;
+        return !"Start".equals(completionFailure.getPhase())
+                && !"Prepare".equals(completionFailure.getPhase())
+                && !completionFailure.getCompletedServices().isEmpty();
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = options.getInitialBackoffNanos() << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > options.getMaxBackoffNanos()) {
+            ceiling = options.getMaxBackoffNanos();
+        }
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Looks for a deadlock, a lock wait timeout, a serialization failure or another transient
+     * <tt>SQLException</tt> in the causes and suppressed exceptions of the failure. Query timeouts
+     * are not retried, they mean the deadline of the transaction passed.
+     */
+    protected boolean isRetriable(Throwable failure) {
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        return isRetriable(failure, seen);
+    }
+
+    private boolean isRetriable(Throwable failure, Set<Throwable> seen) {
+        if (null == failure || !seen.add(failure)) {
+            return false;
+        }
+        if (failure instanceof SQLException && isRetriable((SQLException) failure)) {
+            return true;
+        }
+        for (Throwable suppressed: failure.getSuppressed()) {
+            if (isRetriable(suppressed, seen)) {
+                return true;
+            }
+        }
+        return isRetriable(failure.getCause(), seen);
+    }
+
+    private boolean isRetriable(SQLException failure) {
+        return failure.getErrorCode() == MYSQL_DEADLOCK
+                || failure.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT
+                || SERIALIZATION_FAILURE.equals(failure.getSQLState())
+                || DEADLOCK_DETECTED.equals(failure.getSQLState())
+                || (failure instanceof SQLTransientException && !(failure instanceof SQLTimeoutException));
+    }
+
+    /**
+     * Number of units of work executed, retries not counted.
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Number of units of work which failed for a retriable reason after all attempts or the time budget.
+     */
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionScope;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * A manager can be shared by all threads of a process, the running transaction is the one of
+ * the enclosing <tt>TransactionScope</tt>.
+ *
+ * Open a scope with {@link #runInScope(Runnable)} or {@link #callInScope(Callable)} and call
+ * start/commit/rollback inside it. Child tasks wrapped with <tt>TransactionScope.wrap()</tt>
+ * take part in the same transaction, they share its resources and should not use the same
+ * JDBC connection at the same time.
+ */
+public class ScopedTransactionManager extends AbstractTransactionManager {
+
+    private TransactionContext registrationContext;
+
+    public ScopedTransactionManager() {
+        this.registrationContext = new DefaultTransactionContext();
+    }
+
+    public void runInScope(Runnable task) {
+        TransactionScope.run(new DefaultTransactionContext(), task);
+    }
+
+    public <T> T callInScope(Callable<T> task) throws Exception {
+        return TransactionScope.call(new DefaultTransactionContext(), task);
+    }
+
+    /**
+     * Opens a scope for the transaction when the caller is not in one.
+     */
+    @Override
+    public <T> T inTransaction(Supplier<T> work) {
+        if (null != TransactionScope.current()) {
+            return super.inTransaction(work);
+        }
+        TransactionScope.bind(new DefaultTransactionContext());
+        try {
+            return super.inTransaction(work);
+        } finally {
+            TransactionScope.unbind();
+        }
+    }
+
+    @Override
+    public void run(Runnable work) {
+        if (null != TransactionScope.current()) {
+            super.run(work);
+            return;
+        }
+        TransactionScope.bind(new DefaultTransactionContext());
+        try {
+            super.run(work);
+        } finally {
+            TransactionScope.unbind();
+        }
+    }
+
+    @Override
+    protected TransactionContext getContext() {
+        TransactionContext context = TransactionScope.current();
+        if (null == context) {
+            throw new IllegalStateException("No transaction scope, "
+                    + "ensure the transaction runs inside runInScope() or callInScope().");
+        }
+        return context;
+    }
+
+    @Override
+    protected TransactionContext peekContext() {
+        return TransactionScope.current();
+    }
+
+    /**
+     * The context ends with its scope.
+     */
+    @Override
+    protected void clearContext() {
+
+    }
+
+    /**
+     * The scope stays with the caller, the transaction takes its properties along to a context of its own.
+     */
+    @Override
+    protected TransactionContext detachContext() {
+        return DefaultTransactionContext.moveProperties(getContext());
+    }
+
+    @Override
+    protected TransactionContext getRegistrationContext() {
+        return registrationContext;
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionScope;
+
+/**
+ * A manager can be shared by all threads of a process, the running transaction is bound to the calling thread.
+ *
+ * The context is published through <tt>TransactionScope</tt>, so tasks wrapped with
+ * <tt>TransactionScope.wrap()</tt> join the transaction, and a transaction started inside
+ * an enclosing scope uses the scope's context. Each manager binds a context of its own, so two managers
+ * used on one thread run separate transactions.
+ *
+ * Registered services receive callbacks from many threads at the same time, so they need to be thread safe,
+ * e.g. <tt>JDBCTransactionalService</tt> in shared mode.
+ */
+public class ThreadBoundTransactionManager extends AbstractTransactionManager {
+
+    private TransactionContext registrationContext;
+    private ThreadLocal<ThreadBoundTransactionContext> boundContexts;
+
+    public ThreadBoundTransactionManager() {
+        this.registrationContext = new DefaultTransactionContext();
+        this.boundContexts = new ThreadLocal<>();
+    }
+
+    /**
+     * Returns the context this manager bound to the calling thread, or joins the enclosing scope unless it
+     * was bound by another manager, which has a transaction of its own.
+     */
+    @Override
+    protected TransactionContext getContext() {
+        ThreadBoundTransactionContext context = boundContexts.get();
+        if (null != context) {
+            return context;
+        }
+        TransactionContext scope = TransactionScope.current();
+        if (null != scope && !isBoundByOtherManager(scope)) {
+            return scope;
+        }
+        context = new ThreadBoundTransactionContext(this, scope);
+        boundContexts.set(context);
+        TransactionScope.bind(context);
+        return context;
+    }
+
+    @Override
+    protected TransactionContext peekContext() {
+        TransactionContext context = boundContexts.get();
+        if (null != context) {
+            return context;
+        }
+        TransactionContext scope = TransactionScope.current();
+        if (null != scope && !isBoundByOtherManager(scope)) {
+            return scope;
+        }
+        return null;
+    }
+
+    private boolean isBoundByOtherManager(TransactionContext scope) {
+        return scope instanceof ThreadBoundTransactionContext
+                && ((ThreadBoundTransactionContext) scope).owner != this;
+    }
+
+    /**
+     * Only unbinds the context bound by this manager, and gives the thread back the binding it replaced.
+     * An enclosing scope ends by itself.
+     */
+    @Override
+    protected void clearContext() {
+        ThreadBoundTransactionContext context = boundContexts.get();
+        if (null == context) {
+            return;
+        }
+        boundContexts.remove();
+        context.ended = true;
+        if (TransactionScope.current() != context) {
+            return;
+        }
+        TransactionContext previous = context.previous;
+        while (previous instanceof ThreadBoundTransactionContext
+                && ((ThreadBoundTransactionContext) previous).ended) {
+            previous = ((ThreadBoundTransactionContext) previous).previous;
+        }
+        if (null == previous) {
+            TransactionScope.unbind();
+        } else {
+            TransactionScope.bind(previous);
+        }
+    }
+
+    /**
+     * The context bound by this manager leaves the thread, an enclosing scope stays and the transaction
+     * takes its properties along.
+     */
+    @Override
+    protected TransactionContext detachContext() {
+        TransactionContext context = getContext();
+        if (context != boundContexts.get()) {
+            return DefaultTransactionContext.moveProperties(context);
+        }
+        clearContext();
+        return context;
+    }
+
+    @Override
+    protected TransactionContext getRegistrationContext() {
+        return registrationContext;
+    }
+
+    private static class ThreadBoundTransactionContext extends DefaultTransactionContext {
+
+        private ThreadBoundTransactionManager owner;
+        private TransactionContext previous;
+        private volatile boolean ended;
+
+        ThreadBoundTransactionContext(ThreadBoundTransactionManager owner, TransactionContext previous) {
+            this.owner = owner;
+            this.previous = previous;
+            this.ended = false;
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.codingzero.utilities.transaction.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the timings in memory, one <tt>LatencyTimer</tt> per transaction phase and per phase and service.
+ * Timers are created on first use, later records only look them up.
+ */
+public class DefaultTransactionMetrics implements TransactionMetrics {
+
+    private final ConcurrentMap<String, LatencyTimer> transactionPhases;
+    private final ConcurrentMap<String, ConcurrentMap<String, LatencyTimer>> serviceCalls;
+    private final LatencyTimer connectionAcquisition;
+    private final LatencyHistogram connectionHold;
+
+    public DefaultTransactionMetrics() {
+        this.transactionPhases = new ConcurrentHashMap<>();
+        this.serviceCalls = new ConcurrentHashMap<>();
+        this.connectionAcquisition = new LatencyTimer();
+        this.connectionHold = new LatencyHistogram();
+    }
+
+    @Override
+    public void recordTransactionPhase(String phase, long nanos, boolean failed) {
+        timerOf(transactionPhases, phase).record(nanos, failed);
+    }
+
+    @Override
+    public void recordServiceCall(String phase, String service, long nanos, boolean failed) {
+        ConcurrentMap<String, LatencyTimer> services = serviceCalls.get(phase);
+        if (null == services) {
+            services = serviceCalls.computeIfAbsent(phase, key -> new ConcurrentHashMap<>());
+        }
+        timerOf(services, service).record(nanos, failed);
+    }
+
+    /**
+     * Looks up before computing, computeIfAbsent() of Java 8 locks the bin even when the key is there.
+     */
+    private LatencyTimer timerOf(ConcurrentMap<String, LatencyTimer> timers, String name) {
+        LatencyTimer timer = timers.get(name);
+        if (null == timer) {
+            timer = timers.computeIfAbsent(name, key -> new LatencyTimer());
+        }
+        return timer;
+    }
+
+    @Override
+    public void recordConnectionAcquisition(long nanos, boolean failed) {
+        connectionAcquisition.record(nanos, failed);
+    }
+
+    @Override
+    public void recordConnectionHold(long nanos) {
+        connectionHold.record(nanos);
+    }
+
+    /**
+     * Returns the timers by phase.
+     */
+    public Map<String, LatencyTimer> getTransactionPhases() {
+        return Collections.unmodifiableMap(transactionPhases);
+    }
+
+    /**
+     * Returns the timers by phase, then by service name.
+     */
+    public Map<String, Map<String, LatencyTimer>> getServiceCalls() {
+        return Collections.unmodifiableMap(serviceCalls);
+    }
+
+    public LatencyTimer getConnectionAcquisition() {
+        return connectionAcquisition;
+    }
+
+    public LatencyHistogram getConnectionHold() {
+        return connectionHold;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.codingzero.utilities.transaction.metrics;
+
+/**
+ * The counts of a <tt>LatencyHistogram</tt> at one point in time.
+ */
+public class HistogramSnapshot {
+
+    private long[] counts;
+    private long count;
+    private long sum;
+
+    HistogramSnapshot(long[] counts, long sum) {
+        this.counts = counts;
+        this.sum = sum;
+        long count = 0;
+        for (long bucketCount: counts) {
+            count += bucketCount;
+        }
+        this.count = count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded durations in nanoseconds.
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getBucketCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Returns the number of values up to the upper bound of the bucket.
+     */
+    public long getCumulativeCount(int bucket) {
+        long cumulative = 0;
+        for (int i = 0; i <= bucket; i ++) {
+            cumulative += counts[i];
+        }
+        return cumulative;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile, from 0 to 100, so the result
+     * can overstate the real value by up to twice.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile need to be between 0 and 100.");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i ++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return LatencyHistogram.upperBoundOf(i);
+            }
+        }
+        return LatencyHistogram.upperBoundOf(counts.length - 1);
+    }
+
+}
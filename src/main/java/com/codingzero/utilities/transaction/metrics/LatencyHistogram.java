@@ -0,0 +1,56 @@
+package com.codingzero.utilities.transaction.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds with power of two buckets, bucket <tt>i</tt> counts the values
+ * from <tt>2^(i-1)</tt> up to <tt>2^i - 1</tt>, bucket 0 counts 0.
+ *
+ * Memory is fixed and recording takes no lock, just one atomic increment and one adder, so concurrent
+ * recorders never wait on each other. A snapshot read while values are recorded may miss the latest ones.
+ */
+public class LatencyHistogram {
+
+    public static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets;
+    private final LongAdder sum;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.sum = new LongAdder();
+    }
+
+    /**
+     * Negative durations, e.g. from a clock going back, count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        sum.add(value);
+    }
+
+    static int bucketOf(long value) {
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Returns the largest value counted by the bucket.
+     */
+    public static long upperBoundOf(int bucket) {
+        if (bucket >= 63) {
+            return Long.MAX_VALUE;
+        }
+        return (1L << bucket) - 1;
+    }
+
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i ++) {
+            counts[i] = buckets.get(i);
+        }
+        return new HistogramSnapshot(counts, sum.sum());
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.codingzero.utilities.transaction.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency histogram of an operation, with the number of times it failed.
+ */
+public class LatencyTimer {
+
+    private final LatencyHistogram histogram;
+    private final LongAdder failures;
+
+    public LatencyTimer() {
+        this.histogram = new LatencyHistogram();
+        this.failures = new LongAdder();
+    }
+
+    public void record(long nanos, boolean failed) {
+        histogram.record(nanos);
+        if (failed) {
+            failures.increment();
+        }
+    }
+
+    public HistogramSnapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+}
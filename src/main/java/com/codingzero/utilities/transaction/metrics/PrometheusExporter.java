@@ -0,0 +1,192 @@
+package com.codingzero.utilities.transaction.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes the timings of a <tt>DefaultTransactionMetrics</tt> in the Prometheus text format, to a writer,
+ * to a file for the node exporter's textfile collector, or on a local HTTP endpoint.
+ *
+ * Histograms are exported in seconds with the power of two buckets from about 1 microsecond to about
+ * 1 minute, shorter durations count in the first one and longer ones only in <tt>+Inf</tt>.
+ */
+public class PrometheusExporter implements AutoCloseable {
+
+    private static final int FIRST_EXPORTED_BUCKET = 10;
+    private static final int LAST_EXPORTED_BUCKET = 36;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private DefaultTransactionMetrics metrics;
+    private HttpServer server;
+
+    public PrometheusExporter(DefaultTransactionMetrics metrics) {
+        this.metrics = metrics;
+        this.server = null;
+    }
+
+    public String scrape() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeTo(writer);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return writer.toString();
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        writeHeader(writer, "transaction_phase_duration_seconds", "histogram",
+                "Duration of transaction phases, all services included.");
+        for (Map.Entry<String, LatencyTimer> entry: sorted(metrics.getTransactionPhases()).entrySet()) {
+            writeHistogram(writer, "transaction_phase_duration_seconds",
+                    "phase=\"" + label(entry.getKey()) + "\"", entry.getValue().snapshot());
+        }
+        writeHeader(writer, "transaction_phase_failures_total", "counter", "Failed transaction phases.");
+        for (Map.Entry<String, LatencyTimer> entry: sorted(metrics.getTransactionPhases()).entrySet()) {
+            writeSample(writer, "transaction_phase_failures_total",
+                    "phase=\"" + label(entry.getKey()) + "\"", entry.getValue().getFailureCount());
+        }
+        Map<String, Map<String, LatencyTimer>> serviceCalls = sorted(metrics.getServiceCalls());
+        writeHeader(writer, "transaction_service_call_duration_seconds", "histogram",
+                "Duration of service callbacks by phase.");
+        for (Map.Entry<String, Map<String, LatencyTimer>> phase: serviceCalls.entrySet()) {
+            for (Map.Entry<String, LatencyTimer> service: sorted(phase.getValue()).entrySet()) {
+                writeHistogram(writer, "transaction_service_call_duration_seconds",
+                        serviceLabels(phase.getKey(), service.getKey()), service.getValue().snapshot());
+            }
+        }
+        writeHeader(writer, "transaction_service_call_failures_total", "counter",
+                "Failed service callbacks by phase.");
+        for (Map.Entry<String, Map<String, LatencyTimer>> phase: serviceCalls.entrySet()) {
+            for (Map.Entry<String, LatencyTimer> service: sorted(phase.getValue()).entrySet()) {
+                writeSample(writer, "transaction_service_call_failures_total",
+                        serviceLabels(phase.getKey(), service.getKey()), service.getValue().getFailureCount());
+            }
+        }
+        writeHeader(writer, "transaction_connection_acquisition_seconds", "histogram",
+                "Time to get a connection.");
+        writeHistogram(writer, "transaction_connection_acquisition_seconds", "",
+                metrics.getConnectionAcquisition().snapshot());
+        writeHeader(writer, "transaction_connection_acquisition_failures_total", "counter",
+                "Failed connection acquisitions.");
+        writeSample(writer, "transaction_connection_acquisition_failures_total", "",
+                metrics.getConnectionAcquisition().getFailureCount());
+        writeHeader(writer, "transaction_connection_hold_seconds", "histogram",
+                "Time a transaction held its connection.");
+        writeHistogram(writer, "transaction_connection_hold_seconds", "", metrics.getConnectionHold().snapshot());
+        writer.flush();
+    }
+
+    /**
+     * Writes to a temporary file next to the given one, then moves it in place, so a reader never sees
+     * a partial file.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writeTo(writer);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Serves the metrics on <tt>/metrics</tt> of the given address, until close().
+     */
+    public synchronized void serve(InetSocketAddress address) throws IOException {
+        if (null != server) {
+            throw new IllegalStateException("Exporter is serving already.");
+        }
+        HttpServer server = HttpServer.create(address, 0);
+        server.createContext("/metrics", exchange -> {
+            try {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        this.server = server;
+    }
+
+    /**
+     * Returns the address the endpoint listens on, or null if it is not serving.
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return null == server ? null : server.getAddress();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (null != server) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private void writeHeader(Writer writer, String name, String type, String help) throws IOException {
+        writer.write("# HELP " + name + " " + help + "\n");
+        writer.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private void writeHistogram(Writer writer, String name, String labels, HistogramSnapshot snapshot)
+            throws IOException {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (int i = FIRST_EXPORTED_BUCKET; i <= LAST_EXPORTED_BUCKET; i ++) {
+            double bound = (LatencyHistogram.upperBoundOf(i) + 1) / NANOS_PER_SECOND;
+            writeSample(writer, name + "_bucket",
+                    labels + separator + "le=\"" + format(bound) + "\"", snapshot.getCumulativeCount(i));
+        }
+        writeSample(writer, name + "_bucket", labels + separator + "le=\"+Inf\"", snapshot.getCount());
+        writer.write(name + "_sum" + braces(labels) + " " + format(snapshot.getSum() / NANOS_PER_SECOND) + "\n");
+        writeSample(writer, name + "_count", labels, snapshot.getCount());
+    }
+
+    private void writeSample(Writer writer, String name, String labels, long value) throws IOException {
+        writer.write(name + braces(labels) + " " + value + "\n");
+    }
+
+    private String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private String serviceLabels(String phase, String service) {
+        return "phase=\"" + label(phase) + "\",service=\"" + label(service) + "\"";
+    }
+
+    /**
+     * Escapes a label value, which is otherwise exported as it was recorded.
+     */
+    private String label(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private String format(double value) {
+        return Double.toString(value);
+    }
+
+    private <V> Map<String, V> sorted(Map<String, V> map) {
+        return new TreeMap<>(map);
+    }
+
+}
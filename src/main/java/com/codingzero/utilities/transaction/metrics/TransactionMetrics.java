@@ -0,0 +1,41 @@
+package com.codingzero.utilities.transaction.metrics;
+
+/**
+ * Receives the timings of transactions, services and connections. Implementations are called on the hot path
+ * from many threads at once, they need to be thread safe and should not block.
+ *
+ * Phases are the ones of a transaction, "Start", "Prepare", "Commit" and "Rollback". Durations are in nanoseconds.
+ */
+public interface TransactionMetrics {
+
+    TransactionMetrics NONE = new TransactionMetrics() {};
+
+    /**
+     * A phase of a transaction as seen by the caller of the manager, all services included.
+     */
+    default void recordTransactionPhase(String phase, long nanos, boolean failed) {
+
+    }
+
+    /**
+     * A callback of one registered service in a phase.
+     */
+    default void recordServiceCall(String phase, String service, long nanos, boolean failed) {
+
+    }
+
+    /**
+     * Time to get a connection from the <tt>DataSource</tt> or pool.
+     */
+    default void recordConnectionAcquisition(long nanos, boolean failed) {
+
+    }
+
+    /**
+     * Time a transaction held its connection, from acquisition to release.
+     */
+    default void recordConnectionHold(long nanos) {
+
+    }
+
+}
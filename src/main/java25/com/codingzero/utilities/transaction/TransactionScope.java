@@ -0,0 +1,148 @@
+package com.codingzero.utilities.transaction;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Binds a <tt>TransactionContext</tt> to the dynamic extent of a task, the same way a scoped value does:
+ * the binding is visible to everything the task calls and is gone once the task returns.
+ *
+ * A thread only holds a binding while it runs inside a scope, so idle threads, including virtual
+ * threads, carry no transaction state. Child tasks join the transaction of their parent by
+ * being wrapped with {@link #wrap(Runnable)} or {@link #wrap(Callable)}, which only captures the context.
+ *
+ * Managers whose transaction spans several calls on one thread use {@link #bind(TransactionContext)}
+ * and {@link #unbind()} instead.
+ *
+ * This is the version for JDK 25 and later, scopes are kept in a <tt>ScopedValue</tt>. The binding of a scope
+ * never changes, threads which inherit it all see the same context. A binding made with bind() is kept in a
+ * thread local and only seen by the calling thread. Inside a scope it replaces the context of that scope
+ * until the scope ends.
+ */
+public final class TransactionScope {
+
+    private static final ScopedValue<Binding> SCOPE = ScopedValue.newInstance();
+    private static final ThreadLocal<Bound> BOUND = new ThreadLocal<>();
+
+    private TransactionScope() {
+
+    }
+
+    /**
+     * Returns the context bound to the current scope, or null if the caller is not inside one.
+     */
+    public static TransactionContext current() {
+        Binding scope = currentScope();
+        Bound bound = BOUND.get();
+        if (null != bound && bound.scope == scope) {
+            return bound.context;
+        }
+        return null == scope ? null : scope.context;
+    }
+
+    public static void run(TransactionContext context, Runnable task) {
+        checkForNullContext(context);
+        Bound previous = BOUND.get();
+        try {
+            ScopedValue.where(SCOPE, new Binding(context)).run(task);
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static <T> T call(TransactionContext context, Callable<T> task) throws Exception {
+        checkForNullContext(context);
+        Bound previous = BOUND.get();
+        try {
+            return ScopedValue.where(SCOPE, new Binding(context)).call(task::call);
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Binds the context to the calling thread until {@link #unbind()} is called.
+     */
+    public static void bind(TransactionContext context) {
+        checkForNullContext(context);
+        BOUND.set(new Bound(currentScope(), context));
+    }
+
+    public static void unbind() {
+        Binding scope = currentScope();
+        if (null == scope) {
+            BOUND.remove();
+        } else {
+            BOUND.set(new Bound(scope, null));
+        }
+    }
+
+    /**
+     * Returns a task which runs the given one in the scope of the caller, or the task itself if there is no scope.
+     */
+    public static Runnable wrap(Runnable task) {
+        TransactionContext context = current();
+        if (null == context) {
+            return task;
+        }
+        return () -> run(context, task);
+    }
+
+    /**
+     * Returns a task which calls the given one in the scope of the caller, or the task itself if there is no scope.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        TransactionContext context = current();
+        if (null == context) {
+            return task;
+        }
+        return () -> call(context, task);
+    }
+
+    private static Binding currentScope() {
+        return SCOPE.isBound() ? SCOPE.get() : null;
+    }
+
+    /**
+     * A binding made inside a scope ends with it, the one of the caller is seen again.
+     */
+    private static void restore(Bound previous) {
+        if (null == previous) {
+            BOUND.remove();
+        } else {
+            BOUND.set(previous);
+        }
+    }
+
+    private static void checkForNullContext(TransactionContext context) {
+        if (null == context) {
+            throw new IllegalArgumentException("TransactionContext cannot be null value.");
+        }
+    }
+
+    /**
+     * The context of one scope, its identity tells the scopes apart.
+     */
+    private static final class Binding {
+
+        private final TransactionContext context;
+
+        Binding(TransactionContext context) {
+            this.context = context;
+        }
+    }
+
+    /**
+     * A context bound by one thread, replacing the one of the given scope, or of no scope if it is null.
+     */
+    private static final class Bound {
+
+        private final Binding scope;
+        private final TransactionContext context;
+
+        Bound(Binding scope, TransactionContext context) {
+            this.scope = scope;
+            this.context = context;
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import com.codingzero.utilities.transaction.manager.TransactionManagerImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import javax.sql.DataSource;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchUpdateTest {
+
+    private static final String INSERT = "INSERT INTO test (value) VALUES (?)";
+    private static final String DELETE = "DELETE FROM test WHERE value=?";
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private TestAccess access;
+    private TransactionManagerImpl manager;
+
+    @Before
+    public void setUp() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        access = new TestAccess(dataSource);
+        manager = new TransactionManagerImpl();
+        manager.register("access", access);
+    }
+
+    @Test
+    public void testBatchUpdate_FlushedBeforeCommit() throws SQLException {
+        manager.start();
+        access.insert("a");
+        access.insert("b");
+        verify(connection, never()).prepareStatement(anyString());
+        manager.commit();
+        InOrder order = inOrder(connection, statement);
+        order.verify(connection).prepareStatement(INSERT);
+        order.verify(statement).setObject(1, "a");
+        order.verify(statement).addBatch();
+        order.verify(statement).setObject(1, "b");
+        order.verify(statement).addBatch();
+        order.verify(statement).executeBatch();
+        order.verify(statement).close();
+        order.verify(connection).commit();
+    }
+
+    @Test
+    public void testBatchUpdate_InterleavedKeepsOrder() throws SQLException {
+        manager.start();
+        access.delete("a");
+        access.insert("a");
+        access.delete("a");
+        manager.commit();
+        InOrder order = inOrder(connection, statement);
+        order.verify(connection).prepareStatement(DELETE);
+        order.verify(statement).executeBatch();
+        order.verify(connection).prepareStatement(INSERT);
+        order.verify(statement).executeBatch();
+        order.verify(connection).prepareStatement(DELETE);
+        order.verify(statement).executeBatch();
+        order.verify(connection).commit();
+    }
+
+    @Test
+    public void testBatchUpdate_FlushedOnBatchSize() throws SQLException {
+        manager.start();
+        access.insert("a");
+        access.insert("b");
+        access.insert("c");
+        access.insert("d");
+        verify(statement, times(1)).executeBatch();
+        manager.commit();
+        verify(statement, times(2)).executeBatch();
+    }
+
+    @Test
+    public void testBatchUpdate_FlushedBeforeRead() throws SQLException {
+        manager.start();
+        access.insert("a");
+        access.connection();
+        verify(statement, times(1)).executeBatch();
+        manager.commit();
+        verify(statement, times(1)).executeBatch();
+    }
+
+    @Test
+    public void testBatchUpdate_DiscardedOnRollback() throws SQLException {
+        manager.start();
+        access.insert("a");
+        manager.rollback();
+        verify(connection, never()).prepareStatement(anyString());
+        verify(connection, times(1)).rollback();
+    }
+
+    @Test
+    public void testBatchUpdate_FailureRollsBack() throws SQLException {
+        when(statement.executeBatch()).thenThrow(new BatchUpdateException());
+        manager.start();
+        access.insert("a");
+        try {
+            manager.commit();
+            fail("Expected a failed batch");
+        } catch (RuntimeException e) {
+            verify(connection, never()).commit();
+            verify(connection, times(1)).rollback();
+        }
+    }
+
+    @Test
+    public void testBatchUpdate_NoTransaction() throws SQLException {
+        access.insert("a");
+        verify(statement, times(1)).executeUpdate();
+        verify(statement, never()).addBatch();
+        verify(connection, times(1)).close();
+    }
+
+    private static class TestAccess extends JDBCTransactionalService {
+
+        public TestAccess(DataSource dataSource) {
+            super(dataSource,
+                    new TransactionHelperProvider(),
+                    JDBCTransactionalServiceOptions.create().batchSize(3));
+        }
+
+        public void insert(String value) {
+            batchUpdate(INSERT, value);
+        }
+
+        public void delete(String value) {
+            batchUpdate(DELETE, value);
+        }
+
+        public Connection connection() {
+            return getConnection();
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectionLeakDetectorTest {
+
+    private DataSource dataSource;
+    private BlockingQueue<ConnectionLeak> leaks;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        leaks = new LinkedBlockingQueue<>();
+    }
+
+    @Test
+    public void testUnclosedConnection_Reported() throws Exception {
+        TransactionHelperProvider provider = new TransactionHelperProvider(TransactionHelperProviderOptions.create()
+                .leakDetection(20, TimeUnit.MILLISECONDS, leaks::add)
+                .leakStackSampleRate(1));
+        Connection connection = provider.getConnection(dataSource);
+        ConnectionLeak leak = leaks.poll(5, TimeUnit.SECONDS);
+        assertNotNull(leak);
+        assertNotNull(leak.getAcquisitionStack());
+        assertEquals(Thread.currentThread().getName(), leak.getThreadName());
+        assertEquals(1, provider.getOutstandingConnectionCount());
+        connection.close();
+        assertEquals(0, provider.getOutstandingConnectionCount());
+    }
+
+    @Test
+    public void testCompletedTransaction_NotReported() throws Exception {
+        TransactionHelperProvider provider = new TransactionHelperProvider(TransactionHelperProviderOptions.create()
+                .leakDetection(100, TimeUnit.MILLISECONDS, leaks::add)
+                .leakStackSampleRate(0));
+        TransactionHelper helper = provider.get(dataSource);
+        helper.startTransaction();
+        assertEquals(1, provider.getOutstandingConnectionCount());
+        helper.commit();
+        assertEquals(0, provider.getOutstandingConnectionCount());
+        assertNull(leaks.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFailedCommit_ConnectionClosed() throws Exception {
+        Connection connection = mock(Connection.class);
+        doThrow(new SQLException("Connection lost", "08S01")).when(connection).commit();
+        when(dataSource.getConnection()).thenReturn(connection);
+        TransactionHelperProvider provider = new TransactionHelperProvider(TransactionHelperProviderOptions.create()
+                .leakDetection(100, TimeUnit.MILLISECONDS, leaks::add));
+        TransactionHelper helper = provider.get(dataSource);
+        helper.startTransaction();
+        try {
+            helper.commit();
+            fail("Expected the commit to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        verify(connection).rollback();
+        verify(connection).close();
+        assertFalse(helper.isTransactionStarted());
+        assertEquals(0, provider.getOutstandingConnectionCount());
+    }
+
+    @Test
+    public void testNoLeakDetection() {
+        TransactionHelperProvider provider = new TransactionHelperProvider();
+        provider.getConnection(dataSource);
+        assertEquals(-1, provider.getOutstandingConnectionCount());
+    }
+
+}
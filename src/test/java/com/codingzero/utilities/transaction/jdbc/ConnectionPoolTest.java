@@ -0,0 +1,177 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectionPoolTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private DataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            Connection connection = mock(Connection.class);
+            when(connection.getAutoCommit()).thenReturn(true);
+            return connection;
+        });
+    }
+
+    @Test
+    public void testBorrow_ReusesReturnedConnection() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dataSource, ConnectionPoolOptions.create());
+        Connection connection = pool.borrow();
+        Connection physical = physical(connection);
+        connection.close();
+        verify(physical, never()).close();
+        assertEquals(1, pool.getIdleCount());
+        Connection reused = pool.borrow();
+        assertSame(physical, physical(reused));
+        assertEquals(1, pool.getBorrowedCount());
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    public void testBorrow_Exhausted() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dataSource,
+                ConnectionPoolOptions.create().maxSize(1).borrowTimeout(10, TimeUnit.MILLISECONDS));
+        pool.borrow();
+        thrown.expect(SQLTransientConnectionException.class);
+        pool.borrow();
+    }
+
+    @Test
+    public void testBorrow_InvalidConnection() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dataSource,
+                ConnectionPoolOptions.create().validationWindow(-1, TimeUnit.MILLISECONDS));
+        Connection connection = pool.borrow();
+        Connection physical = physical(connection);
+        when(physical.isValid(anyInt())).thenReturn(false);
+        connection.close();
+        Connection replaced = pool.borrow();
+        assertNotSame(physical, physical(replaced));
+        verify(physical, times(1)).close();
+    }
+
+    @Test
+    public void testBorrow_ExpiredConnection() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dataSource,
+                ConnectionPoolOptions.create().maxIdle(-1, TimeUnit.MILLISECONDS));
+        Connection connection = pool.borrow();
+        Connection physical = physical(connection);
+        connection.close();
+        assertEquals(0, pool.getIdleCount());
+        verify(physical, times(1)).close();
+    }
+
+    @Test
+    public void testEviction_ClosesIdleConnection() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dataSource, ConnectionPoolOptions.create()
+                .maxIdle(10, TimeUnit.MILLISECONDS).evictionInterval(20, TimeUnit.MILLISECONDS));
+        Connection connection = pool.borrow();
+        Connection physical = physical(connection);
+        connection.close();
+        verify(physical, timeout(5000)).close();
+        assertEquals(0, pool.getIdleCount());
+        pool.close();
+    }
+
+    @Test
+    public void testClose_RollsBackOpenTransaction() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dataSource, ConnectionPoolOptions.create());
+        Connection connection = pool.borrow();
+        Connection physical = physical(connection);
+        when(physical.getAutoCommit()).thenReturn(false);
+        connection.close();
+        verify(physical, times(1)).rollback();
+        verify(physical, times(1)).setAutoCommit(true);
+        assertTrue(connection.isClosed());
+    }
+
+    @Test
+    public void testClose_ClosesStatements() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dataSource, ConnectionPoolOptions.create());
+        Connection connection = pool.borrow();
+        Connection physical = physical(connection);
+        PreparedStatement physicalStatement = mock(PreparedStatement.class);
+        when(physical.prepareStatement("SELECT 1")).thenReturn(physicalStatement);
+        PreparedStatement statement = connection.prepareStatement("SELECT 1");
+        assertSame(connection, statement.getConnection());
+        connection.close();
+        verify(physicalStatement, times(1)).close();
+    }
+
+    @Test
+    public void testClose_HandleUnusable() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(dataSource, ConnectionPoolOptions.create());
+        Connection connection = pool.borrow();
+        connection.close();
+        Connection reused = pool.borrow();
+        thrown.expect(SQLException.class);
+        try {
+            connection.createStatement();
+        } finally {
+            verify(physical(reused), never()).createStatement();
+        }
+    }
+
+    @Test
+    public void testClose_RestoresSessionState() throws SQLException {
+        AtomicBoolean readOnly = new AtomicBoolean(false);
+        AtomicInteger isolation = new AtomicInteger(Connection.TRANSACTION_REPEATABLE_READ);
+        Connection physical = mock(Connection.class);
+        when(physical.getAutoCommit()).thenReturn(true);
+        when(physical.isReadOnly()).thenAnswer(invocation -> readOnly.get());
+        doAnswer(invocation -> {
+            readOnly.set(invocation.getArgument(0));
+            return null;
+        }).when(physical).setReadOnly(anyBoolean());
+        when(physical.getTransactionIsolation()).thenAnswer(invocation -> isolation.get());
+        doAnswer(invocation -> {
+            isolation.set(invocation.getArgument(0));
+            return null;
+        }).when(physical).setTransactionIsolation(anyInt());
+        when(dataSource.getConnection()).thenReturn(physical);
+        ConnectionPool pool = new ConnectionPool(dataSource, ConnectionPoolOptions.create());
+        Connection connection = pool.borrow();
+        connection.setReadOnly(true);
+        connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        connection.close();
+        assertFalse(readOnly.get());
+        assertEquals(Connection.TRANSACTION_REPEATABLE_READ, isolation.get());
+    }
+
+    private Connection physical(Connection connection) throws SQLException {
+        return ((PooledConnection) connection).getDelegate();
+    }
+
+}
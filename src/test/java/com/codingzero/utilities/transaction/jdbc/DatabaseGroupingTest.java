@@ -0,0 +1,97 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import com.codingzero.utilities.transaction.manager.TransactionManagerImpl;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DatabaseGroupingTest {
+
+    @Test
+    public void testSameDataSource_SharedConnection() throws SQLException {
+        DataSource dataSource = newDataSource();
+        TestAccess first = new TestAccess(dataSource, JDBCTransactionalServiceOptions.create());
+        TestAccess second = new SecondTestAccess(dataSource, JDBCTransactionalServiceOptions.create());
+        TransactionManagerImpl manager = newManager(first, second);
+        manager.start();
+        Connection connection = first.connection();
+        assertSame(connection, second.connection());
+        manager.commit();
+        verify(connection, times(1)).commit();
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    public void testDifferentDataSources_ConnectionEach() throws SQLException {
+        DataSource firstDataSource = newDataSource();
+        DataSource secondDataSource = newDataSource();
+        TestAccess first = new TestAccess(firstDataSource, JDBCTransactionalServiceOptions.create());
+        TestAccess second = new SecondTestAccess(secondDataSource, JDBCTransactionalServiceOptions.create());
+        TransactionManagerImpl manager = newManager(first, second);
+        manager.start();
+        Connection firstConnection = first.connection();
+        Connection secondConnection = second.connection();
+        assertNotSame(firstConnection, secondConnection);
+        manager.commit();
+        verify(firstConnection, times(1)).commit();
+        verify(secondConnection, times(1)).commit();
+        verify(firstDataSource, times(1)).getConnection();
+        verify(secondDataSource, times(1)).getConnection();
+    }
+
+    @Test
+    public void testDatabaseGroup_SharedConnection() throws SQLException {
+        DataSource firstDataSource = newDataSource();
+        DataSource secondDataSource = newDataSource();
+        TestAccess first = new TestAccess(firstDataSource,
+                JDBCTransactionalServiceOptions.create().databaseGroup("main"));
+        TestAccess second = new SecondTestAccess(secondDataSource,
+                JDBCTransactionalServiceOptions.create().databaseGroup("main"));
+        TransactionManagerImpl manager = newManager(first, second);
+        manager.start();
+        assertSame(first.connection(), second.connection());
+        manager.rollback();
+        verify(secondDataSource, times(0)).getConnection();
+    }
+
+    private DataSource newDataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        return dataSource;
+    }
+
+    private TransactionManagerImpl newManager(TestAccess first, TestAccess second) {
+        TransactionManagerImpl manager = new TransactionManagerImpl();
+        manager.register("first", first);
+        manager.register("second", second);
+        return manager;
+    }
+
+    private static class TestAccess extends JDBCTransactionalService {
+
+        public TestAccess(DataSource dataSource, JDBCTransactionalServiceOptions options) {
+            super(dataSource, new TransactionHelperProvider(), options);
+        }
+
+        public Connection connection() {
+            return getConnection();
+        }
+    }
+
+    private static class SecondTestAccess extends TestAccess {
+
+        public SecondTestAccess(DataSource dataSource, JDBCTransactionalServiceOptions options) {
+            super(dataSource, options);
+        }
+    }
+
+}
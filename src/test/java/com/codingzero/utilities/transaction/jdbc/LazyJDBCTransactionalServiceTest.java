@@ -0,0 +1,86 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import com.codingzero.utilities.transaction.manager.TransactionManagerImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LazyJDBCTransactionalServiceTest {
+
+    private DataSource dataSource;
+    private TestAccess first;
+    private TestAccess second;
+    private TransactionManagerImpl manager;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        first = new TestAccess(dataSource);
+        second = new SecondTestAccess(dataSource);
+        manager = new TransactionManagerImpl();
+        manager.register("first", first);
+        manager.register("second", second);
+    }
+
+    @Test
+    public void testUntouched_NoConnection() throws SQLException {
+        manager.start();
+        manager.commit();
+        manager.start();
+        manager.rollback();
+        verify(dataSource, never()).getConnection();
+    }
+
+    @Test
+    public void testTouched_SharedConnection() throws SQLException {
+        manager.start();
+        Connection connection = second.connection();
+        assertSame(connection, first.connection());
+        manager.commit();
+        verify(dataSource, times(1)).getConnection();
+        verify(connection, times(1)).setAutoCommit(false);
+        verify(connection, times(1)).commit();
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    public void testTouched_Rollback() throws SQLException {
+        manager.start();
+        Connection connection = first.connection();
+        manager.rollback();
+        verify(connection, times(1)).rollback();
+        verify(connection, never()).commit();
+    }
+
+    private static class TestAccess extends JDBCTransactionalService {
+
+        public TestAccess(DataSource dataSource) {
+            super(dataSource,
+                    new TransactionHelperProvider(),
+                    JDBCTransactionalServiceOptions.create().lazy(true));
+        }
+
+        public Connection connection() {
+            return getConnection();
+        }
+    }
+
+    private static class SecondTestAccess extends TestAccess {
+
+        public SecondTestAccess(DataSource dataSource) {
+            super(dataSource);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import com.codingzero.utilities.transaction.manager.TransactionManagerImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NestedTransactionTest {
+
+    private Connection connection;
+    private Savepoint savepoint;
+    private DataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        savepoint = mock(Savepoint.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+    }
+
+    @Test
+    public void testInnerRollback_OuterCommits() throws SQLException {
+        TestAccess access = new TestAccess(dataSource, true);
+        access.start();
+        Connection outer = access.connection();
+        access.start();
+        assertSame(outer, access.connection());
+        access.rollback();
+        access.commit();
+        verify(connection, times(1)).setSavepoint();
+        verify(connection, times(1)).rollback(savepoint);
+        verify(connection, times(1)).releaseSavepoint(savepoint);
+        verify(connection, never()).rollback();
+        verify(connection, times(1)).commit();
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    public void testInnerCommit_OuterRollback() throws SQLException {
+        TestAccess access = new TestAccess(dataSource, true);
+        access.start();
+        access.start();
+        access.commit();
+        access.rollback();
+        verify(connection, never()).rollback(any(Savepoint.class));
+        verify(connection, times(1)).releaseSavepoint(savepoint);
+        verify(connection, times(1)).rollback();
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    public void testInnerCommit_ReleaseNotSupported() throws SQLException {
+        doThrow(new SQLFeatureNotSupportedException()).when(connection).releaseSavepoint(savepoint);
+        TestAccess access = new TestAccess(dataSource, true);
+        access.start();
+        access.start();
+        access.commit();
+        access.commit();
+        verify(connection, times(1)).releaseSavepoint(savepoint);
+        verify(connection, times(1)).commit();
+    }
+
+    @Test
+    public void testFlattened_NoSavepoint() throws SQLException {
+        TestAccess access = new TestAccess(dataSource, false);
+        access.start();
+        access.start();
+        access.commit();
+        access.commit();
+        verify(connection, never()).setSavepoint();
+        verify(connection, times(1)).commit();
+    }
+
+    @Test
+    public void testInnerRollback_GlobalCommits() throws SQLException {
+        TestAccess access = new TestAccess(dataSource, true);
+        TransactionManagerImpl manager = new TransactionManagerImpl();
+        manager.register("access", access);
+        manager.start();
+        Connection outer = access.connection();
+        access.start();
+        assertSame(outer, access.connection());
+        access.rollback();
+        manager.commit();
+        verify(connection, times(1)).setSavepoint();
+        verify(connection, times(1)).rollback(savepoint);
+        verify(connection, never()).rollback();
+        verify(connection, times(1)).commit();
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    public void testInnerCommit_GlobalRollback() throws SQLException {
+        TestAccess access = new TestAccess(dataSource, true);
+        TransactionManagerImpl manager = new TransactionManagerImpl();
+        manager.register("access", access);
+        manager.start();
+        access.start();
+        access.commit();
+        manager.rollback();
+        verify(connection, never()).rollback(any(Savepoint.class));
+        verify(connection, times(1)).releaseSavepoint(savepoint);
+        verify(connection, times(1)).rollback();
+        verify(connection, never()).commit();
+    }
+
+    private static class TestAccess extends JDBCTransactionalService {
+
+        public TestAccess(DataSource dataSource, boolean nested) {
+            super(dataSource,
+                    new TransactionHelperProvider(),
+                    JDBCTransactionalServiceOptions.create().nested(nested));
+        }
+
+        public Connection connection() {
+            return getConnection();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import com.codingzero.utilities.transaction.manager.TransactionManagerImpl;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReadOnlyTransactionTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private Connection connection;
+    private TestAccess access;
+    private TransactionManagerImpl manager;
+
+    @Before
+    public void setUp() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        access = new TestAccess(dataSource);
+        manager = new TransactionManagerImpl();
+        manager.register("access", access);
+    }
+
+    @Test
+    public void testStartReadOnly() throws SQLException {
+        manager.startReadOnly();
+        access.connection().prepareStatement("SELECT * FROM test");
+        manager.commit();
+        InOrder order = inOrder(connection);
+        order.verify(connection).setAutoCommit(false);
+        order.verify(connection).setReadOnly(true);
+        order.verify(connection).prepareStatement("SELECT * FROM test");
+        order.verify(connection).commit();
+        order.verify(connection).setReadOnly(false);
+        order.verify(connection).close();
+    }
+
+    @Test
+    public void testStartReadOnly_WriteRejected() throws SQLException {
+        manager.startReadOnly();
+        thrown.expect(SQLException.class);
+        try {
+            access.connection().prepareStatement(" /* audit */ UPDATE test SET value = 1");
+        } finally {
+            verify(connection, never()).prepareStatement(anyString());
+            manager.rollback();
+        }
+    }
+
+    @Test
+    public void testStart_AfterReadOnly() throws SQLException {
+        manager.startReadOnly();
+        manager.commit();
+        manager.start();
+        access.connection().prepareStatement("UPDATE test SET value = 1");
+        manager.commit();
+        verify(connection, times(1)).setReadOnly(true);
+        verify(connection, times(1)).prepareStatement("UPDATE test SET value = 1");
+    }
+
+    @Test
+    public void testLocalTransaction_ReadOnly() throws SQLException {
+        access.startReadOnly();
+        access.connection().prepareStatement("SELECT 1");
+        access.rollback();
+        verify(connection, times(1)).setReadOnly(true);
+        verify(connection, times(1)).rollback();
+        verify(connection, times(1)).setReadOnly(false);
+    }
+
+    @Test
+    public void testIsWrite() {
+        assertTrue(ReadOnlyConnection.isWrite("insert into test values (1)"));
+        assertTrue(ReadOnlyConnection.isWrite("-- note\n DELETE FROM test"));
+        assertFalse(ReadOnlyConnection.isWrite("(SELECT 1) UNION (SELECT 2)"));
+        assertFalse(ReadOnlyConnection.isWrite("SELECT * FROM test FOR UPDATE"));
+    }
+
+    private static class TestAccess extends JDBCTransactionalService {
+
+        public TestAccess(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        public Connection connection() {
+            return getConnection();
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource firstReplica;
+    private DataSource secondReplica;
+    private RoutingDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        primary = newDataSource();
+        firstReplica = newDataSource();
+        secondReplica = newDataSource();
+        dataSource = new RoutingDataSource(primary, Arrays.asList(firstReplica, secondReplica),
+                RoutingDataSourceOptions.create().stickyWindow(1, TimeUnit.MINUTES));
+    }
+
+    private DataSource newDataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class, RETURNS_MOCKS));
+        return dataSource;
+    }
+
+    @Test
+    public void testRead_RoundRobin() throws SQLException {
+        read();
+        read();
+        verify(firstReplica, times(1)).getConnection();
+        verify(secondReplica, times(1)).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    private RoutingConnection read() throws SQLException {
+        RoutingConnection connection = (RoutingConnection) dataSource.getConnection();
+        connection.prepareStatement("SELECT * FROM test");
+        connection.close();
+        return connection;
+    }
+
+    @Test
+    public void testWrite_StickyPrimary() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.prepareStatement("INSERT INTO test VALUES (1)").executeUpdate();
+        connection.close();
+        assertTrue(dataSource.isSticky());
+        assertTrue(read().isOnPrimary());
+        verify(firstReplica, never()).getConnection();
+        verify(primary, times(2)).getConnection();
+    }
+
+    @Test
+    public void testReadThenWrite_MovesToPrimary() throws SQLException {
+        RoutingConnection connection = (RoutingConnection) dataSource.getConnection();
+        connection.prepareStatement("SELECT * FROM test");
+        assertFalse(connection.isOnPrimary());
+        connection.prepareStatement("UPDATE test SET value = 1");
+        assertTrue(connection.isOnPrimary());
+        verify(primary, times(1)).getConnection();
+    }
+
+    @Test
+    public void testReadThenWrite_ReplicaKeptOpen() throws SQLException {
+        Connection replicaConnection = mock(Connection.class, RETURNS_MOCKS);
+        when(firstReplica.getConnection()).thenReturn(replicaConnection);
+        when(secondReplica.getConnection()).thenReturn(replicaConnection);
+        RoutingConnection connection = (RoutingConnection) dataSource.getConnection();
+        connection.prepareStatement("SELECT * FROM test");
+        connection.prepareStatement("UPDATE test SET value = 1");
+        assertTrue(connection.isOnPrimary());
+        verify(replicaConnection, never()).close();
+        connection.close();
+        verify(replicaConnection, times(1)).close();
+    }
+
+    @Test
+    public void testTransaction_Primary() throws SQLException {
+        RoutingConnection connection = (RoutingConnection) dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.prepareStatement("SELECT * FROM test");
+        assertTrue(connection.isOnPrimary());
+        assertFalse(dataSource.isSticky());
+        connection.prepareStatement("UPDATE test SET value = 1").executeUpdate();
+        assertFalse(dataSource.isSticky());
+        connection.commit();
+        assertTrue(dataSource.isSticky());
+    }
+
+    @Test
+    public void testWriteNotRun_NotSticky() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.prepareStatement("INSERT INTO test VALUES (1)");
+        connection.close();
+        assertFalse(dataSource.isSticky());
+    }
+
+    @Test
+    public void testWriteRolledBack_NotSticky() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.prepareStatement("UPDATE test SET value = 1").executeUpdate();
+        connection.rollback();
+        assertFalse(dataSource.isSticky());
+    }
+
+    @Test
+    public void testCommitOnOtherThread_WriterSticky() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        PreparedStatement statement = connection.prepareStatement("UPDATE test SET value = 1");
+        statement.executeUpdate();
+        boolean[] committerSticky = new boolean[1];
+        Thread committer = new Thread(() -> {
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            committerSticky[0] = dataSource.isSticky();
+        });
+        committer.start();
+        committer.join();
+        assertTrue(dataSource.isSticky());
+        assertFalse(committerSticky[0]);
+    }
+
+    @Test
+    public void testReadOnlyTransaction_Replica() throws SQLException {
+        RoutingConnection connection = (RoutingConnection) dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.setReadOnly(true);
+        connection.createStatement();
+        assertFalse(connection.isOnPrimary());
+        Connection replicaConnection = connection.getDelegate();
+        verify(replicaConnection, times(1)).setAutoCommit(false);
+        verify(replicaConnection, times(1)).setReadOnly(true);
+    }
+
+    @Test
+    public void testEmptyTransaction_NoConnection() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.commit();
+        connection.setAutoCommit(true);
+        connection.close();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    public void testFailingReplica_Ejected() throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("down"));
+        read();
+        read();
+        assertEquals(1, dataSource.getHealthyReplicaCount());
+        verify(firstReplica, times(1)).getConnection();
+        verify(secondReplica, times(2)).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    public void testCheckReplicas() throws SQLException {
+        dataSource.checkReplicas();
+        assertEquals(0, dataSource.getHealthyReplicaCount());
+        assertTrue(read().isOnPrimary());
+    }
+
+}
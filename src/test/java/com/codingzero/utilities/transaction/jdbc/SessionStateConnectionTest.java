@@ -0,0 +1,151 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SessionStateConnectionTest {
+
+    private Connection physical;
+    private SessionStateConnection connection;
+
+    @Before
+    public void setUp() throws SQLException {
+        physical = mock(Connection.class);
+        when(physical.getAutoCommit()).thenReturn(true);
+        when(physical.createStatement()).thenAnswer(invocation -> mock(Statement.class));
+        when(physical.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        connection = new SessionStateConnection(physical);
+    }
+
+    @Test
+    public void testEmptyTransaction_NoRoundTrip() throws SQLException {
+        connection.setAutoCommit(false);
+        connection.commit();
+        connection.setAutoCommit(true);
+        verify(physical, never()).setAutoCommit(anyBoolean());
+        verify(physical, never()).commit();
+    }
+
+    @Test
+    public void testTransaction_AppliedBeforeStatement() throws SQLException {
+        connection.setAutoCommit(false);
+        connection.prepareStatement("SELECT 1").executeQuery();
+        assertTrue(connection.isDirty());
+        connection.commit();
+        assertFalse(connection.isDirty());
+        verify(physical, times(1)).setAutoCommit(false);
+        verify(physical, times(1)).commit();
+    }
+
+    @Test
+    public void testTransaction_UnchangedStateNotResent() throws SQLException {
+        connection.setAutoCommit(false);
+        connection.prepareStatement("SELECT 1").executeQuery();
+        connection.rollback();
+        connection.setAutoCommit(false);
+        connection.prepareStatement("SELECT 1").executeQuery();
+        connection.commit();
+        verify(physical, times(1)).setAutoCommit(false);
+        verify(physical, times(1)).rollback();
+        verify(physical, times(1)).commit();
+    }
+
+    @Test
+    public void testSetAutoCommit_CommitsRunningTransaction() throws SQLException {
+        connection.setAutoCommit(false);
+        connection.createStatement().execute("UPDATE t SET a = 1");
+        connection.setAutoCommit(true);
+        assertFalse(connection.isDirty());
+        verify(physical, times(1)).setAutoCommit(true);
+    }
+
+    @Test
+    public void testUnknownAutoCommit_TakenAsTransaction() throws SQLException {
+        connection.createStatement().execute("UPDATE t SET a = 1");
+        connection.commit();
+        verify(physical, times(1)).commit();
+    }
+
+    @Test
+    public void testAutoCommit_StatementNotDirty() throws SQLException {
+        connection.getAutoCommit();
+        connection.createStatement().execute("SELECT 1");
+        connection.commit();
+        assertFalse(connection.isDirty());
+        verify(physical, never()).commit();
+    }
+
+    @Test
+    public void testStatementNotRun_NotDirty() throws SQLException {
+        connection.setAutoCommit(false);
+        connection.prepareStatement("UPDATE t SET a = 1");
+        assertFalse(connection.isDirty());
+        connection.commit();
+        verify(physical, never()).commit();
+    }
+
+    @Test
+    public void testStatementFromEarlierTransaction_Dirty() throws SQLException {
+        connection.setAutoCommit(false);
+        PreparedStatement statement = connection.prepareStatement("UPDATE t SET a = ?");
+        statement.executeUpdate();
+        connection.commit();
+        statement.setInt(1, 2);
+        statement.addBatch();
+        assertTrue(connection.isDirty());
+        statement.executeBatch();
+        connection.commit();
+        verify(physical, times(2)).commit();
+    }
+
+    @Test
+    public void testClose_RestoresSessionState() throws SQLException {
+        connection.setReadOnly(true);
+        connection.setAutoCommit(false);
+        connection.prepareStatement("SELECT 1").executeQuery();
+        connection.commit();
+        connection.setAutoCommit(true);
+        connection.setReadOnly(false);
+        connection.close();
+        InOrder inOrder = inOrder(physical);
+        inOrder.verify(physical).setReadOnly(true);
+        inOrder.verify(physical).setAutoCommit(false);
+        inOrder.verify(physical).commit();
+        inOrder.verify(physical).setReadOnly(false);
+        inOrder.verify(physical).setAutoCommit(true);
+        inOrder.verify(physical).close();
+    }
+
+    @Test
+    public void testClose_UnsentStateNotRestored() throws SQLException {
+        connection.setAutoCommit(false);
+        connection.setAutoCommit(true);
+        connection.close();
+        verify(physical, never()).setAutoCommit(anyBoolean());
+        verify(physical, times(1)).close();
+    }
+
+    @Test
+    public void testStatement_ConnectionIsWrapper() throws SQLException {
+        assertSame(connection, connection.createStatement().getConnection());
+    }
+
+}
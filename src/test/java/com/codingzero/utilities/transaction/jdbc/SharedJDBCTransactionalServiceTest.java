@@ -0,0 +1,200 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionScope;
+import com.codingzero.utilities.transaction.manager.ScopedTransactionManager;
+import com.codingzero.utilities.transaction.manager.TransactionManagerImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SharedJDBCTransactionalServiceTest {
+
+    private DataSource dataSource;
+    private TestAccess access;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        access = new TestAccess(dataSource);
+    }
+
+    @Test
+    public void testGlobalTransaction_ConnectionPerThread() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Connection> first = executor.submit(() -> runGlobalTransaction(started));
+            Future<Connection> second = executor.submit(() -> runGlobalTransaction(started));
+            Connection firstConnection = first.get(5, TimeUnit.SECONDS);
+            Connection secondConnection = second.get(5, TimeUnit.SECONDS);
+            assertNotSame(firstConnection, secondConnection);
+            verify(firstConnection, times(1)).commit();
+            verify(secondConnection, times(1)).commit();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Connection runGlobalTransaction(CountDownLatch started) throws InterruptedException {
+        TransactionManagerImpl manager = new TransactionManagerImpl();
+        manager.register("access", access);
+        manager.start();
+        Connection connection = access.connection();
+        started.countDown();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertSame(connection, access.connection());
+        manager.commit();
+        return connection;
+    }
+
+    @Test
+    public void testLocalTransaction_ConnectionPerThread() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Connection> first = executor.submit(() -> runLocalTransaction(started));
+            Future<Connection> second = executor.submit(() -> runLocalTransaction(started));
+            Connection firstConnection = first.get(5, TimeUnit.SECONDS);
+            Connection secondConnection = second.get(5, TimeUnit.SECONDS);
+            assertNotSame(firstConnection, secondConnection);
+            verify(firstConnection, times(1)).rollback();
+            verify(secondConnection, times(1)).rollback();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Connection runLocalTransaction(CountDownLatch started) throws InterruptedException {
+        access.start();
+        Connection connection = access.connection();
+        started.countDown();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertSame(connection, access.connection());
+        access.rollback();
+        return connection;
+    }
+
+    @Test
+    public void testNoTransaction_AfterCommit() throws SQLException {
+        TransactionManagerImpl manager = new TransactionManagerImpl();
+        manager.register("access", access);
+        manager.start();
+        Connection transactionConnection = access.connection();
+        manager.commit();
+        Connection connection = access.connection();
+        assertNotSame(transactionConnection, connection);
+        access.closeConnection(connection);
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    public void testGlobalTransaction_Scope() throws Exception {
+        ScopedTransactionManager manager = new ScopedTransactionManager();
+        manager.register("access", access);
+        Connection connection = manager.callInScope(() -> {
+            manager.start();
+            Connection scopeConnection = access.connection();
+            manager.commit();
+            return scopeConnection;
+        });
+        verify(connection, times(1)).commit();
+        assertNotSame(connection, access.connection());
+    }
+
+    @Test
+    public void testFailedCommit_StateRemoved() throws SQLException {
+        Connection connection = mock(Connection.class);
+        doThrow(new SQLException("Connection lost", "08S01")).when(connection).commit();
+        when(dataSource.getConnection()).thenReturn(connection);
+        TestContext context = new TestContext();
+        TransactionScope.run(context, () -> {
+            access.onStartTransaction(context);
+            access.connection();
+            try {
+                access.onCommitTransaction(context);
+                fail("Expected the commit to fail");
+            } catch (RuntimeException e) {
+                assertTrue(e.getCause() instanceof SQLException);
+            }
+        });
+        for (String name: context.names) {
+            Object property = context.getProperty(name);
+            if (property instanceof TransactionHelperRegistry) {
+                assertNull(((TransactionHelperRegistry) property).get(TransactionHelperRegistry.keyOf(dataSource, null)));
+            } else {
+                assertFalse(property instanceof ServiceTransactionState);
+            }
+        }
+        verify(connection, times(1)).close();
+    }
+
+    /**
+     * Remembers the names of the properties set on it.
+     */
+    private static class TestContext implements TransactionContext {
+
+        private Map<String, Object> properties = new HashMap<>();
+        private Set<String> names = new HashSet<>();
+
+        @Override
+        public void setProperty(String name, Object property) {
+            properties.put(name, property);
+            names.add(name);
+        }
+
+        @Override
+        public Object getProperty(String name) {
+            return properties.get(name);
+        }
+
+        @Override
+        public Object removeProperty(String name) {
+            return properties.remove(name);
+        }
+    }
+
+    private static class TestAccess extends JDBCTransactionalService {
+
+        public TestAccess(DataSource dataSource) {
+            super(dataSource,
+                    new TransactionHelperProvider(),
+                    JDBCTransactionalServiceOptions.create().shared(true));
+        }
+
+        public Connection connection() {
+            return getConnection();
+        }
+
+        @Override
+        public void closeConnection(Connection conn) {
+            super.closeConnection(conn);
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StatementCacheTest {
+
+    private Connection connection;
+    private TransactionHelper helper;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+        helper = new TransactionHelper(connection, 2);
+        helper.startTransaction();
+    }
+
+    @Test
+    public void testPrepare_ReusesReleasedStatement() throws SQLException {
+        PreparedStatement statement = helper.getConnection().prepareStatement("SELECT 1");
+        assertTrue(helper.releaseStatement(statement));
+        assertSame(statement, helper.getConnection().prepareStatement("SELECT 1"));
+        verify(connection, times(1)).prepareStatement("SELECT 1");
+        verify(statement, times(1)).clearParameters();
+        verify(statement, never()).close();
+    }
+
+    @Test
+    public void testRelease_ResetsStatement() throws SQLException {
+        PreparedStatement statement = helper.getConnection().prepareStatement("SELECT 1");
+        ResultSet resultSet = mock(ResultSet.class);
+        when(statement.getResultSet()).thenReturn(resultSet);
+        when(statement.getMaxRows()).thenReturn(10);
+        when(statement.getFetchSize()).thenReturn(100);
+        assertTrue(helper.releaseStatement(statement));
+        verify(resultSet, times(1)).close();
+        verify(statement, times(1)).clearBatch();
+        verify(statement, times(1)).setMaxRows(0);
+        verify(statement, times(1)).setFetchSize(0);
+        verify(statement, never()).close();
+    }
+
+    @Test
+    public void testRelease_ResetFailureCloses() throws SQLException {
+        PreparedStatement statement = helper.getConnection().prepareStatement("SELECT 1");
+        doThrow(new SQLException("Batch cannot be cleared")).when(statement).clearBatch();
+        assertTrue(helper.releaseStatement(statement));
+        verify(statement, times(1)).close();
+        assertNotSame(statement, helper.getConnection().prepareStatement("SELECT 1"));
+    }
+
+    @Test
+    public void testPrepare_InUseNotShared() throws SQLException {
+        PreparedStatement statement = helper.getConnection().prepareStatement("SELECT 1");
+        assertNotSame(statement, helper.getConnection().prepareStatement("SELECT 1"));
+    }
+
+    @Test
+    public void testRelease_EvictsLeastRecentlyUsed() throws SQLException {
+        PreparedStatement first = helper.getConnection().prepareStatement("SELECT 1");
+        PreparedStatement second = helper.getConnection().prepareStatement("SELECT 2");
+        PreparedStatement third = helper.getConnection().prepareStatement("SELECT 3");
+        helper.releaseStatement(first);
+        helper.releaseStatement(second);
+        helper.releaseStatement(third);
+        verify(first, times(1)).close();
+        verify(second, never()).close();
+        verify(third, never()).close();
+    }
+
+    @Test
+    public void testRelease_UnknownStatement() {
+        assertFalse(helper.releaseStatement(mock(PreparedStatement.class)));
+    }
+
+    @Test
+    public void testCommit_ClosesCachedStatements() throws SQLException {
+        PreparedStatement statement = helper.getConnection().prepareStatement("SELECT 1");
+        helper.releaseStatement(statement);
+        helper.commit();
+        verify(statement, times(1)).close();
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.codingzero.utilities.transaction.jdbc;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TransactionDeadlineTest {
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private DataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+    }
+
+    @Test
+    public void testStart_QueryTimeoutFromDeadline() throws SQLException {
+        TestAccess access = new TestAccess(dataSource, JDBCTransactionalServiceOptions.create());
+        access.start(5, TimeUnit.SECONDS);
+        access.connection().prepareStatement("SELECT 1");
+        access.commit();
+        verify(statement, times(1)).setQueryTimeout(5);
+        verify(connection, times(1)).commit();
+    }
+
+    @Test
+    public void testDefaultTimeout_Expired() throws SQLException {
+        TestAccess access = new TestAccess(dataSource,
+                JDBCTransactionalServiceOptions.create().defaultTimeout(500, TimeUnit.MILLISECONDS));
+        access.start();
+        access.connection().prepareStatement("UPDATE student SET name = ?");
+        verify(statement, timeout(5000)).cancel();
+        verify(connection, timeout(5000)).close();
+        verify(connection, times(1)).rollback();
+        try {
+            access.connection();
+            fail("Expected the expired transaction to refuse the connection");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+        try {
+            access.commit();
+            fail("Expected the commit of the expired transaction to fail");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+        verify(connection, never()).commit();
+        access.start();
+        access.rollback();
+    }
+
+    @Test
+    public void testExpired_HeldStatementRefused() throws SQLException {
+        TestAccess access = new TestAccess(dataSource,
+                JDBCTransactionalServiceOptions.create().defaultTimeout(500, TimeUnit.MILLISECONDS));
+        access.start();
+        PreparedStatement held = access.connection().prepareStatement("UPDATE student SET name = ?");
+        verify(connection, timeout(5000)).close();
+        verify(statement, times(1)).close();
+        try {
+            held.executeUpdate();
+            fail("Expected the statement of the expired transaction to be refused");
+        } catch (SQLTimeoutException e) {
+            //expected
+        }
+        verify(statement, never()).executeUpdate();
+        access.rollback();
+    }
+
+    @Test
+    public void testDeadlinePassed_NewStatementRefused() throws SQLException, InterruptedException {
+        TransactionHelper helper = new TransactionHelper(connection);
+        helper.startTransaction();
+        helper.setDeadline(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+        Connection userConnection = helper.getConnection();
+        helper.setDeadline(System.nanoTime());
+        try {
+            userConnection.prepareStatement("SELECT 1");
+            fail("Expected the statement to be refused");
+        } catch (SQLTimeoutException e) {
+            //expected
+        }
+        verify(connection, timeout(5000)).close();
+        assertTrue(helper.isExpired());
+        helper.rollback();
+    }
+
+    private static class TestAccess extends JDBCTransactionalService {
+
+        public TestAccess(DataSource dataSource, JDBCTransactionalServiceOptions options) {
+            super(dataSource, new TransactionHelperProvider(), options);
+        }
+
+        public Connection connection() {
+            return getConnection();
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.codingzero.utilities.transaction.jfr;
+
+import com.codingzero.utilities.transaction.TransactionManager;
+import com.codingzero.utilities.transaction.TransactionManagerBuilder;
+import com.codingzero.utilities.transaction.TransactionalService;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TransactionEventsTest {
+
+    private TransactionManager manager;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(TransactionEvents.isSupported() && FlightRecorder.isAvailable());
+        manager = TransactionManagerBuilder.create().build();
+        manager.register("student", mock(TransactionalService.class));
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            List<RecordedEvent> events = record(recording);
+            assertTrue(events.isEmpty());
+        }
+    }
+
+    @Test
+    public void testEnabled() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable("com.codingzero.transaction.Phase");
+            recording.enable("com.codingzero.transaction.ServiceCallback");
+            List<RecordedEvent> events = record(recording);
+            List<String> phases = new ArrayList<>();
+            int callbacks = 0;
+            for (RecordedEvent event: events) {
+                if (event.getEventType().getName().equals("com.codingzero.transaction.Phase")) {
+                    phases.add(event.getString("phase"));
+                } else {
+                    assertEquals("student", event.getString("service"));
+                    callbacks ++;
+                }
+            }
+            assertTrue(phases.contains("Start"));
+            assertTrue(phases.contains("Commit"));
+            assertEquals(2, callbacks);
+        }
+    }
+
+    private List<RecordedEvent> record(Recording recording) throws Exception {
+        recording.start();
+        manager.start();
+        manager.commit();
+        recording.stop();
+        Path file = Files.createTempFile("transaction", ".jfr");
+        try {
+            recording.dump(file);
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event: RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().startsWith("com.codingzero.transaction.")) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
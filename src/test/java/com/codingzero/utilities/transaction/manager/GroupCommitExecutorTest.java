@@ -0,0 +1,162 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionalService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class GroupCommitExecutorTest {
+
+    private TransactionalService service;
+    private GroupCommitExecutor executor;
+
+    @Before
+    public void setUp() {
+        service = mock(TransactionalService.class);
+        TransactionManagerImpl manager = new TransactionManagerImpl();
+        manager.register("service", service);
+        executor = new GroupCommitExecutor(manager,
+                GroupCommitOptions.create().maxBatchSize(3).maxWait(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void testSubmit_OneCommit() throws Exception {
+        CompletableFuture<Integer> first = executor.submit(() -> 1);
+        CompletableFuture<Integer> second = executor.submit(() -> 2);
+        CompletableFuture<Integer> third = executor.submit(() -> 3);
+        assertEquals(Integer.valueOf(1), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), second.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(3), third.get(5, TimeUnit.SECONDS));
+        verify(service, times(1)).onStartTransaction(any(TransactionContext.class));
+        verify(service, times(1)).onCommitTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testSubmit_FailingUnitRunsAlone() throws Exception {
+        CompletableFuture<Integer> first = executor.submit(() -> 1);
+        CompletableFuture<Integer> second = executor.submit(() -> {
+            throw new IllegalStateException("bad unit");
+        });
+        CompletableFuture<Integer> third = executor.submit(() -> 3);
+        assertEquals(Integer.valueOf(1), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(3), third.get(5, TimeUnit.SECONDS));
+        try {
+            second.get(5, TimeUnit.SECONDS);
+            fail("Expected the bad unit to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        verify(service, times(4)).onStartTransaction(any(TransactionContext.class));
+        verify(service, times(2)).onCommitTransaction(any(TransactionContext.class));
+        verify(service, times(2)).onRollbackTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testSubmit_FailedCommitFailsEveryUnit() throws Exception {
+        IllegalStateException failure = new IllegalStateException("commit failed");
+        doThrow(failure).when(service).onCommitTransaction(any(TransactionContext.class));
+        CompletableFuture<Integer> first = executor.submit(() -> 1);
+        CompletableFuture<Integer> second = executor.submit(() -> 2);
+        CompletableFuture<Integer> third = executor.submit(() -> 3);
+        for (CompletableFuture<Integer> future: Arrays.asList(first, second, third)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Expected the unit to fail with the commit");
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        verify(service, times(1)).onStartTransaction(any(TransactionContext.class));
+        verify(service, times(1)).onCommitTransaction(any(TransactionContext.class));
+        verify(service, times(1)).onRollbackTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testSubmit_ErrorRolledBack() throws Exception {
+        CompletableFuture<Integer> first = executor.submit(() -> {
+            throw new AssertionError("bad unit");
+        });
+        CompletableFuture<Integer> second = executor.submit(() -> 2);
+        CompletableFuture<Integer> third = executor.submit(() -> 3);
+        try {
+            first.get(5, TimeUnit.SECONDS);
+            fail("Expected the bad unit to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        assertEquals(Integer.valueOf(2), second.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(3), third.get(5, TimeUnit.SECONDS));
+        verify(service, times(2)).onRollbackTransaction(any(TransactionContext.class));
+        CompletableFuture<Integer> fourth = executor.submit(() -> 4);
+        CompletableFuture<Integer> fifth = executor.submit(() -> 5);
+        CompletableFuture<Integer> sixth = executor.submit(() -> 6);
+        assertEquals(Integer.valueOf(4), fourth.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(5), fifth.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(6), sixth.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSubmit_RacingCloseCompletes() throws Exception {
+        List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+        CountDownLatch submitting = new CountDownLatch(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i ++) {
+            Thread thread = new Thread(() -> {
+                submitting.countDown();
+                CompletableFuture<Void> future;
+                do {
+                    future = executor.submit(() -> { });
+                    futures.add(future);
+                } while (!future.isCompletedExceptionally());
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        submitting.await();
+        executor.close();
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        for (CompletableFuture<Void> future: futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        }
+    }
+
+    @Test
+    public void testSubmit_AfterClose() throws Exception {
+        executor.close();
+        CompletableFuture<Void> future = executor.submit(() -> { });
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionalService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class RetryingTransactionExecutorTest {
+
+    private TransactionalService service;
+    private RetryingTransactionExecutor executor;
+
+    @Before
+    public void setUp() {
+        service = mock(TransactionalService.class);
+        TransactionManagerImpl manager = new TransactionManagerImpl();
+        manager.register("service", service);
+        executor = new RetryingTransactionExecutor(manager,
+                RetryOptions.create().maxAttempts(3).backoff(1, 2, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testExecute_RetriesDeadlock() {
+        AtomicInteger runs = new AtomicInteger();
+        int result = executor.execute(() -> {
+            if (runs.incrementAndGet() < 3) {
+                throw new RuntimeException(new SQLException("Deadlock found", "40001", 1213));
+            }
+            return runs.get();
+        });
+        assertEquals(3, result);
+        assertEquals(2, executor.getRetryCount());
+        verify(service, times(2)).onRollbackTransaction(any(TransactionContext.class));
+        verify(service, times(1)).onCommitTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testExecute_RetriesFailedCommit() {
+        doThrow(new RuntimeException(new SQLException("Lock wait timeout exceeded", "HY000", 1205)))
+                .doNothing()
+                .when(service).onCommitTransaction(any(TransactionContext.class));
+        executor.execute(() -> {});
+        assertEquals(1, executor.getRetryCount());
+        verify(service, times(1)).onRollbackTransaction(any(TransactionContext.class));
+        verify(service, times(2)).onCommitTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testExecute_PartlyCommittedNotRetried() {
+        TransactionalService other = mock(TransactionalService.class);
+        TransactionManagerImpl manager = new TransactionManagerImpl();
+        manager.register("service", service);
+        manager.register("other", other);
+        executor = new RetryingTransactionExecutor(manager,
+                RetryOptions.create().maxAttempts(3).backoff(1, 2, TimeUnit.MILLISECONDS));
+        doThrow(new RuntimeException(new SQLException("Lock wait timeout exceeded", "HY000", 1205)))
+                .when(other).onCommitTransaction(any(TransactionContext.class));
+        AtomicInteger runs = new AtomicInteger();
+        try {
+            executor.execute(() -> {
+                runs.incrementAndGet();
+            });
+            fail("Expected the commit failure to be thrown");
+        } catch (RuntimeException e) {
+            assertEquals(1, runs.get());
+        }
+        assertEquals(0, executor.getRetryCount());
+        assertEquals(1, executor.getFailureCount());
+        verify(service, times(1)).onCommitTransaction(any(TransactionContext.class));
+        verify(other, times(1)).onCommitTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testExecute_NotRetriable() {
+        AtomicInteger runs = new AtomicInteger();
+        try {
+            executor.execute(() -> {
+                runs.incrementAndGet();
+                throw new RuntimeException(new SQLException("Duplicate entry", "23000", 1062));
+            });
+            fail("Expected the failure to be thrown");
+        } catch (RuntimeException e) {
+            assertEquals(1, runs.get());
+        }
+        assertEquals(0, executor.getRetryCount());
+        assertEquals(1, executor.getFailureCount());
+    }
+
+    @Test
+    public void testExecute_Exhausted() {
+        AtomicInteger runs = new AtomicInteger();
+        try {
+            executor.execute(() -> {
+                runs.incrementAndGet();
+                throw new RuntimeException(new SQLException("Deadlock found", "40001", 1213));
+            });
+            fail("Expected the failure to be thrown");
+        } catch (RuntimeException e) {
+            assertEquals(3, runs.get());
+        }
+        assertEquals(2, executor.getRetryCount());
+        assertEquals(1, executor.getExhaustedCount());
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionScope;
+import com.codingzero.utilities.transaction.TransactionalService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScopedTransactionManagerTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private ScopedTransactionManager manager;
+    private TransactionalService service;
+
+    @Before
+    public void setUp() {
+        manager = new ScopedTransactionManager();
+        service = mock(TransactionalService.class);
+        manager.register("Service", service);
+    }
+
+    @Test
+    public void testStart_NoScope() {
+        thrown.expect(IllegalStateException.class);
+        manager.start();
+    }
+
+    @Test
+    public void testCommit_ScopeContext() {
+        AtomicReference<TransactionContext> scope = new AtomicReference<>();
+        manager.runInScope(() -> {
+            scope.set(TransactionScope.current());
+            manager.start();
+            manager.commit();
+        });
+        ArgumentCaptor<TransactionContext> committed = ArgumentCaptor.forClass(TransactionContext.class);
+        verify(service, times(1)).onCommitTransaction(committed.capture());
+        assertSame(scope.get(), committed.getValue());
+        assertNull(TransactionScope.current());
+    }
+
+    @Test
+    public void testCommitAsync_ScopeStaysWithCaller() throws Exception {
+        when(service.keepsStateInContext()).thenReturn(true);
+        AtomicBoolean readOnlyOnCommit = new AtomicBoolean();
+        doAnswer(invocation -> {
+            readOnlyOnCommit.set(invocation.<TransactionContext>getArgument(0).isReadOnly());
+            return null;
+        }).when(service).onCommitTransaction(any(TransactionContext.class));
+        AtomicReference<TransactionContext> scope = new AtomicReference<>();
+        AtomicReference<CompletableFuture<Void>> future = new AtomicReference<>();
+        manager.runInScope(() -> {
+            scope.set(TransactionScope.current());
+            manager.startReadOnly();
+            future.set(manager.commitAsync());
+            assertFalse(scope.get().isReadOnly());
+        });
+        future.get().get(5, TimeUnit.SECONDS);
+        ArgumentCaptor<TransactionContext> committed = ArgumentCaptor.forClass(TransactionContext.class);
+        verify(service, times(1)).onCommitTransaction(committed.capture());
+        assertNotSame(scope.get(), committed.getValue());
+        assertTrue(readOnlyOnCommit.get());
+    }
+
+    @Test
+    public void testWrap_ChildTaskJoinsScope() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            TransactionContext child = manager.callInScope(() ->
+                    executor.submit(TransactionScope.wrap(TransactionScope::current)).get(5, TimeUnit.SECONDS));
+            assertNotNull(child);
+            assertNull(executor.submit(TransactionScope::current).get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInTransaction_OpensScope() {
+        assertSame("result", manager.inTransaction(() -> {
+            assertNotNull(TransactionScope.current());
+            return "result";
+        }));
+        verify(service, times(1)).onCommitTransaction(any(TransactionContext.class));
+        assertNull(TransactionScope.current());
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.codingzero.utilities.transaction.manager;
+
+import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionManagerBuilder;
+import com.codingzero.utilities.transaction.TransactionScope;
+import com.codingzero.utilities.transaction.TransactionalService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ThreadBoundTransactionManagerTest {
+
+    private ThreadBoundTransactionManager manager;
+    private TransactionalService service;
+
+    @Before
+    public void setUp() {
+        manager = new ThreadBoundTransactionManager();
+        service = mock(TransactionalService.class);
+        manager.register("Service", service);
+    }
+
+    @After
+    public void tearDown() {
+        TransactionScope.unbind();
+    }
+
+    @Test
+    public void testBuild() {
+        assertTrue(TransactionManagerBuilder.create().threadBound(true).build()
+                instanceof ThreadBoundTransactionManager);
+    }
+
+    @Test
+    public void testCommit_SameContextAsStart() {
+        manager.start();
+        manager.commit();
+        ArgumentCaptor<TransactionContext> started = ArgumentCaptor.forClass(TransactionContext.class);
+        ArgumentCaptor<TransactionContext> committed = ArgumentCaptor.forClass(TransactionContext.class);
+        verify(service, times(1)).onStartTransaction(started.capture());
+        verify(service, times(1)).onCommitTransaction(committed.capture());
+        assertSame(started.getValue(), committed.getValue());
+    }
+
+    @Test
+    public void testStart_NewContextAfterRollback() {
+        manager.start();
+        manager.rollback();
+        manager.start();
+        ArgumentCaptor<TransactionContext> started = ArgumentCaptor.forClass(TransactionContext.class);
+        verify(service, times(2)).onStartTransaction(started.capture());
+        assertNotSame(started.getAllValues().get(0), started.getAllValues().get(1));
+    }
+
+    @Test
+    public void testRollback_FailedServiceEndsTransaction() {
+        TransactionalService other = mock(TransactionalService.class);
+        manager.register("Other", other);
+        RuntimeException failure = new RuntimeException("Connection lost");
+        doThrow(failure).when(service).onRollbackTransaction(any(TransactionContext.class));
+        manager.start();
+        try {
+            manager.rollback();
+            fail("Expected the rollback to fail");
+        } catch (RuntimeException e) {
+            assertSame(failure, e);
+        }
+        verify(other, times(1)).onRollbackTransaction(any(TransactionContext.class));
+        assertNull(TransactionScope.current());
+    }
+
+    @Test
+    public void testStart_ContextPerManager() {
+        ThreadBoundTransactionManager other = new ThreadBoundTransactionManager();
+        TransactionalService otherService = mock(TransactionalService.class);
+        other.register("Service", otherService);
+        manager.start();
+        TransactionContext context = TransactionScope.current();
+        other.start();
+        assertNotSame(context, TransactionScope.current());
+        other.commit();
+        assertSame(context, TransactionScope.current());
+        manager.commit();
+        assertNull(TransactionScope.current());
+        ArgumentCaptor<TransactionContext> committed = ArgumentCaptor.forClass(TransactionContext.class);
+        ArgumentCaptor<TransactionContext> otherCommitted = ArgumentCaptor.forClass(TransactionContext.class);
+        verify(service, times(1)).onCommitTransaction(committed.capture());
+        verify(otherService, times(1)).onCommitTransaction(otherCommitted.capture());
+        assertSame(context, committed.getValue());
+        assertNotSame(context, otherCommitted.getValue());
+    }
+
+    @Test
+    public void testStart_ContextPerThread() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            manager.start();
+            executor.submit(() -> manager.start());
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        ArgumentCaptor<TransactionContext> started = ArgumentCaptor.forClass(TransactionContext.class);
+        verify(service, times(2)).onStartTransaction(started.capture());
+        assertNotSame(started.getAllValues().get(0), started.getAllValues().get(1));
+    }
+
+    @Test
+    public void testCommitAsync_DetachesCaller() throws Exception {
+        when(service.keepsStateInContext()).thenReturn(true);
+        AtomicReference<Thread> committedOn = new AtomicReference<>();
+        doAnswer(invocation -> {
+            committedOn.set(Thread.currentThread());
+            return null;
+        }).when(service).onCommitTransaction(any(TransactionContext.class));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            manager.setAsyncExecutor(executor);
+            manager.start();
+            TransactionContext context = TransactionScope.current();
+            CompletableFuture<Void> future = manager.commitAsync();
+            assertNull(TransactionScope.current());
+            future.get(5, TimeUnit.SECONDS);
+            ArgumentCaptor<TransactionContext> committed = ArgumentCaptor.forClass(TransactionContext.class);
+            verify(service, times(1)).onCommitTransaction(committed.capture());
+            assertSame(context, committed.getValue());
+            assertNotSame(Thread.currentThread(), committedOn.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCommitAsync_StateOutOfContextCompletesOnCaller() throws Exception {
+        AtomicReference<Thread> committedOn = new AtomicReference<>();
+        doAnswer(invocation -> {
+            committedOn.set(Thread.currentThread());
+            return null;
+        }).when(service).onCommitTransaction(any(TransactionContext.class));
+        manager.start();
+        manager.commitAsync().get(5, TimeUnit.SECONDS);
+        assertSame(Thread.currentThread(), committedOn.get());
+        assertNull(TransactionScope.current());
+    }
+
+}
@@ -1,18 +1,41 @@
 package com.codingzero.utilities.transaction.manager;
 
+import com.codingzero.utilities.transaction.PreparableTransactionalService;
+import com.codingzero.utilities.transaction.TransactionCompletionException;
 import com.codingzero.utilities.transaction.TransactionContext;
+import com.codingzero.utilities.transaction.TransactionManager;
+import com.codingzero.utilities.transaction.TransactionManagerBuilder;
 import com.codingzero.utilities.transaction.TransactionalService;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class TransactionManagerImplTest {
 
@@ -105,4 +128,277 @@ public class TransactionManagerImplTest {
         manager.rollback();
         verify(service, times(1)).onRollbackTransaction(any(TransactionContext.class));
     }
+
+    @Test
+    public void testCommit_Parallel() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            TransactionManager manager = TransactionManagerBuilder.create().parallelCommit(executor).build();
+            TransactionalService service1 = mock(TransactionalService.class);
+            TransactionalService service2 = mock(TransactionalService.class);
+            TransactionalService service3 = mock(TransactionalService.class);
+            manager.register("Service1", service1);
+            manager.register("Service2", service2);
+            manager.register("Service3", service3);
+            manager.start();
+            manager.commit();
+            verify(service1, times(1)).onCommitTransaction(any(TransactionContext.class));
+            verify(service2, times(1)).onCommitTransaction(any(TransactionContext.class));
+            verify(service3, times(1)).onCommitTransaction(any(TransactionContext.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRollback_Parallel_Failures() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            TransactionManager manager = TransactionManagerBuilder.create().parallelCommit(executor).build();
+            TransactionalService service1 = mock(TransactionalService.class);
+            TransactionalService service2 = mock(TransactionalService.class);
+            TransactionalService service3 = mock(TransactionalService.class);
+            RuntimeException failure = new RuntimeException("failure");
+            doThrow(failure).when(service2).onRollbackTransaction(any(TransactionContext.class));
+            manager.register("Service1", service1);
+            manager.register("Service2", service2);
+            manager.register("Service3", service3);
+            manager.start();
+            try {
+                manager.rollback();
+                fail("Expected TransactionCompletionException");
+            } catch (TransactionCompletionException e) {
+                assertEquals(Arrays.asList("service1", "service3"), e.getCompletedServices());
+                assertEquals(Collections.singletonMap("service2", failure), e.getFailures());
+            }
+            verify(service1, times(1)).onRollbackTransaction(any(TransactionContext.class));
+            verify(service3, times(1)).onRollbackTransaction(any(TransactionContext.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStart_Concurrent_Failure() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            TransactionManager manager = TransactionManagerBuilder.create()
+                    .concurrentStart(executor, 5, TimeUnit.SECONDS).build();
+            TransactionalService service1 = mock(TransactionalService.class);
+            TransactionalService service2 = mock(TransactionalService.class);
+            RuntimeException failure = new RuntimeException("failure");
+            doThrow(failure).when(service2).onStartTransaction(any(TransactionContext.class));
+            manager.register("Service1", service1);
+            manager.register("Service2", service2);
+            try {
+                manager.start();
+                fail("Expected TransactionCompletionException");
+            } catch (TransactionCompletionException e) {
+                assertEquals(Collections.singletonList("service1"), e.getCompletedServices());
+                assertEquals(Collections.singletonMap("service2", failure), e.getFailures());
+            }
+            verify(service1, times(1)).onRollbackTransaction(any(TransactionContext.class));
+            verify(service2, never()).onRollbackTransaction(any(TransactionContext.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStart_Concurrent_Timeout() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            TransactionManager manager = TransactionManagerBuilder.create()
+                    .concurrentStart(executor, 50, TimeUnit.MILLISECONDS).build();
+            TransactionalService service1 = mock(TransactionalService.class);
+            TransactionalService service2 = mock(TransactionalService.class);
+            doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+                    .when(service1).onStartTransaction(any(TransactionContext.class));
+            manager.register("Service1", service1);
+            manager.register("Service2", service2);
+            try {
+                manager.start();
+                fail("Expected TransactionCompletionException");
+            } catch (TransactionCompletionException e) {
+                assertEquals(Collections.singletonList("service2"), e.getCompletedServices());
+                assertTrue(e.getFailures().get("service1") instanceof TimeoutException);
+            }
+            verify(service2, times(1)).onRollbackTransaction(any(TransactionContext.class));
+            release.countDown();
+            verify(service1, timeout(5000).times(1)).onRollbackTransaction(any(TransactionContext.class));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStart_Concurrent_LastServiceTimeout() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            TransactionManager manager = TransactionManagerBuilder.create()
+                    .concurrentStart(executor, 50, TimeUnit.MILLISECONDS).build();
+            TransactionalService service1 = mock(TransactionalService.class);
+            TransactionalService service2 = mock(TransactionalService.class);
+            doAnswer(invocation -> release.await(5, TimeUnit.SECONDS))
+                    .when(service2).onStartTransaction(any(TransactionContext.class));
+            manager.register("Service1", service1);
+            manager.register("Service2", service2);
+            long begin = System.nanoTime();
+            try {
+                manager.start();
+                fail("Expected TransactionCompletionException");
+            } catch (TransactionCompletionException e) {
+                assertEquals(Collections.singletonList("service1"), e.getCompletedServices());
+                assertTrue(e.getFailures().get("service2") instanceof TimeoutException);
+            }
+            assertTrue(System.nanoTime() - begin < TimeUnit.SECONDS.toNanos(2));
+            verify(service1, times(1)).onRollbackTransaction(any(TransactionContext.class));
+            release.countDown();
+            verify(service2, timeout(5000).times(1)).onRollbackTransaction(any(TransactionContext.class));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCommit_Prepared() {
+        TransactionalService service1 = mock(TransactionalService.class);
+        PreparableTransactionalService service2 = mock(PreparableTransactionalService.class);
+        when(service2.onPrepareTransaction(any(TransactionContext.class))).thenReturn(true);
+        manager.register("Service1", service1);
+        manager.register("Service2", service2);
+        manager.start();
+        manager.commit();
+        verify(service2, times(1)).onPrepareTransaction(any(TransactionContext.class));
+        verify(service1, times(1)).onCommitTransaction(any(TransactionContext.class));
+        verify(service2, times(1)).onCommitTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testCommit_Prepared_VotedNo() {
+        TransactionalService service1 = mock(TransactionalService.class);
+        PreparableTransactionalService service2 = mock(PreparableTransactionalService.class);
+        when(service2.onPrepareTransaction(any(TransactionContext.class))).thenReturn(false);
+        manager.register("Service1", service1);
+        manager.register("Service2", service2);
+        manager.start();
+        try {
+            manager.commit();
+            fail("Expected TransactionCompletionException");
+        } catch (TransactionCompletionException e) {
+            assertEquals(Collections.singleton("service2"), e.getFailures().keySet());
+        }
+        verify(service1, never()).onCommitTransaction(any(TransactionContext.class));
+        verify(service2, never()).onCommitTransaction(any(TransactionContext.class));
+        verify(service1, times(1)).onRollbackTransaction(any(TransactionContext.class));
+        verify(service2, times(1)).onRollbackTransaction(any(TransactionContext.class));
+    }
+    @Test
+    public void testStartReadOnly_MarksContext() {
+        TransactionalService service = mock(TransactionalService.class);
+        manager.register("service", service);
+        manager.startReadOnly();
+        assertTrue(manager.getContext().isReadOnly());
+        manager.commit();
+        assertFalse(manager.getContext().isReadOnly());
+        manager.start();
+        assertFalse(manager.getContext().isReadOnly());
+        manager.rollback();
+    }
+
+    @Test
+    public void testCommitAsync_CompletesOnCaller() throws Exception {
+        TransactionalService service = mock(TransactionalService.class);
+        when(service.keepsStateInContext()).thenReturn(true);
+        Thread[] committedOn = new Thread[1];
+        doAnswer(invocation -> {
+            committedOn[0] = Thread.currentThread();
+            return null;
+        }).when(service).onCommitTransaction(any(TransactionContext.class));
+        manager.register("service", service);
+        manager.start();
+        manager.commitAsync().get(5, TimeUnit.SECONDS);
+        assertSame(Thread.currentThread(), committedOn[0]);
+    }
+
+    @Test
+    public void testRollbackAsync_Failure() throws Exception {
+        TransactionalService service = mock(TransactionalService.class);
+        doThrow(new IllegalStateException("failed")).when(service).onRollbackTransaction(any(TransactionContext.class));
+        manager.register("service", service);
+        manager.start();
+        CompletableFuture<Void> future = manager.rollbackAsync();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected a failed rollback");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testInTransaction_Commit() {
+        TransactionalService service = mock(TransactionalService.class);
+        manager.register("Service", service);
+        assertEquals("result", manager.inTransaction(() -> "result"));
+        verify(service, times(1)).onStartTransaction(any(TransactionContext.class));
+        verify(service, times(1)).onCommitTransaction(any(TransactionContext.class));
+        verify(service, never()).onRollbackTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testRun_RollbackFailureSuppressed() {
+        TransactionalService service = mock(TransactionalService.class);
+        RuntimeException rollbackFailure = new RuntimeException("rollback failed");
+        doThrow(rollbackFailure).when(service).onRollbackTransaction(any(TransactionContext.class));
+        manager.register("Service", service);
+        IllegalStateException failure = new IllegalStateException("work failed");
+        try {
+            manager.run(() -> {
+                throw failure;
+            });
+            fail("Expected the failure of the work");
+        } catch (IllegalStateException e) {
+            assertEquals(failure, e);
+            assertEquals(1, e.getSuppressed().length);
+            assertEquals(rollbackFailure, e.getSuppressed()[0]);
+        }
+        verify(service, never()).onCommitTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testInTransaction_CommitEndedTransaction_NoSecondRollback() {
+        PreparableTransactionalService service = mock(PreparableTransactionalService.class);
+        when(service.onPrepareTransaction(any(TransactionContext.class))).thenReturn(false);
+        manager.register("Service", service);
+        try {
+            manager.inTransaction(() -> "result");
+            fail("Expected TransactionCompletionException");
+        } catch (TransactionCompletionException e) {
+            assertEquals(0, e.getSuppressed().length);
+        }
+        assertFalse(manager.isTransactionActive());
+        verify(service, times(1)).onRollbackTransaction(any(TransactionContext.class));
+    }
+
+    @Test
+    public void testCommit_DeadlinePassed() throws InterruptedException {
+        TransactionalService service = mock(TransactionalService.class);
+        manager.register("Service", service);
+        manager.start(1, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+        try {
+            manager.commit();
+            fail("Expected the commit to fail");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+        verify(service, times(1)).onRollbackTransaction(any(TransactionContext.class));
+        verify(service, never()).onCommitTransaction(any(TransactionContext.class));
+    }
+
 }
@@ -0,0 +1,62 @@
+package com.codingzero.utilities.transaction.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testRecord_Buckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(4);
+        histogram.record(-5);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(5, snapshot.getCount());
+        assertEquals(8, snapshot.getSum());
+        assertEquals(2, snapshot.getBucketCount(0));
+        assertEquals(1, snapshot.getBucketCount(1));
+        assertEquals(1, snapshot.getBucketCount(2));
+        assertEquals(1, snapshot.getBucketCount(3));
+        assertEquals(4, snapshot.getCumulativeCount(2));
+    }
+
+    @Test
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i ++) {
+            histogram.record(1000);
+        }
+        histogram.record(1_000_000);
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1023, snapshot.getPercentile(50));
+        assertEquals(1023, snapshot.getPercentile(99));
+        assertEquals((1L << 20) - 1, snapshot.getPercentile(100));
+    }
+
+    @Test
+    public void testRecord_Concurrent() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i ++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10000; j ++) {
+                    histogram.record(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.snapshot().getCount());
+    }
+
+}
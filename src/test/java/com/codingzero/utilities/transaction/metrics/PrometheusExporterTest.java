@@ -0,0 +1,117 @@
+package com.codingzero.utilities.transaction.metrics;
+
+import com.codingzero.utilities.transaction.TransactionManager;
+import com.codingzero.utilities.transaction.TransactionManagerBuilder;
+import com.codingzero.utilities.transaction.TransactionalService;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelper;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelperProvider;
+import com.codingzero.utilities.transaction.jdbc.TransactionHelperProviderOptions;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrometheusExporterTest {
+
+    private DefaultTransactionMetrics metrics;
+    private PrometheusExporter exporter;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new DefaultTransactionMetrics();
+        exporter = new PrometheusExporter(metrics);
+        TransactionManager manager = TransactionManagerBuilder.create().metrics(metrics).build();
+        manager.register("student", mock(TransactionalService.class));
+        manager.start();
+        manager.commit();
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        TransactionHelper helper = new TransactionHelperProvider(
+                TransactionHelperProviderOptions.create().metrics(metrics)).get(dataSource);
+        helper.startTransaction();
+        helper.commit();
+    }
+
+    @Test
+    public void testRecorded() {
+        assertEquals(1, metrics.getTransactionPhases().get("Commit").snapshot().getCount());
+        assertEquals(1, metrics.getServiceCalls().get("Start").get("student").snapshot().getCount());
+        assertEquals(1, metrics.getConnectionAcquisition().snapshot().getCount());
+        assertEquals(1, metrics.getConnectionHold().snapshot().getCount());
+    }
+
+    @Test
+    public void testScrape() {
+        String text = exporter.scrape();
+        assertTrue(text.contains("# TYPE transaction_phase_duration_seconds histogram"));
+        assertTrue(text.contains("transaction_phase_duration_seconds_count{phase=\"Commit\"} 1"));
+        assertTrue(text.contains(
+                "transaction_service_call_duration_seconds_bucket{phase=\"Start\",service=\"student\",le=\"+Inf\"} 1"));
+        assertTrue(text.contains("transaction_service_call_failures_total{phase=\"Commit\",service=\"student\"} 0"));
+        assertTrue(text.contains("transaction_connection_hold_seconds_count 1"));
+    }
+
+    @Test
+    public void testScrape_LabelEscapedKeepsCase() {
+        metrics.recordServiceCall("Commit", "StudentDAO \"a\\b\"\n", 1, false);
+        String text = exporter.scrape();
+        assertTrue(text.contains("transaction_service_call_failures_total"
+                + "{phase=\"Commit\",service=\"StudentDAO \\\"a\\\\b\\\"\\n\"} 0"));
+    }
+
+    @Test
+    public void testWriteTo_File() throws Exception {
+        Path directory = Files.createTempDirectory("metrics");
+        Path file = directory.resolve("transaction.prom");
+        try {
+            exporter.writeTo(file);
+            assertEquals(exporter.scrape(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testServe() throws Exception {
+        exporter.serve(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        try {
+            URL url = new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress()
+                    + ":" + exporter.getAddress().getPort() + "/metrics");
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            assertEquals(200, connection.getResponseCode());
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream input = connection.getInputStream()) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            assertTrue(new String(body.toByteArray(), StandardCharsets.UTF_8)
+                    .contains("transaction_connection_acquisition_seconds_count 1"));
+        } finally {
+            exporter.close();
+        }
+    }
+
+}